@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.isRegularFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The state of HEAD and the tags of a repository, read from the files in the git directory without opening the
+ * repository. The version resolved for a repository stays valid as long as its state does not change.
+ */
+final class RefState {
+
+	private static final String SYMBOLIC_REF_PREFIX = "ref: ";
+
+	private final String head;
+
+	private final String fingerprint;
+
+	private RefState(String head, String fingerprint) {
+		this.head = head;
+		this.fingerprint = fingerprint;
+	}
+
+	static Optional<RefState> read(Path gitDir) {
+		if (!isDirectory(gitDir)) {
+			// Work trees linked by a .git file are not supported, they are always resolved through the repository.
+			return Optional.empty();
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			String head = readHead(gitDir);
+			update(digest, "HEAD " + head);
+			Path packedRefs = gitDir.resolve("packed-refs");
+			if (isRegularFile(packedRefs)) {
+				BasicFileAttributes attributes = Files.readAttributes(packedRefs, BasicFileAttributes.class);
+				update(digest, "packed-refs " + attributes.lastModifiedTime().toMillis() + " " + attributes.size());
+			}
+			Path tags = gitDir.resolve("refs").resolve("tags");
+			if (isDirectory(tags)) {
+				for (Path tag : listFiles(tags)) {
+					BasicFileAttributes attributes = Files.readAttributes(tag, BasicFileAttributes.class);
+					update(digest, "tag " + tags.relativize(tag) + " " + attributes.lastModifiedTime().toMillis() + " "
+							+ attributes.size());
+				}
+			}
+			return Optional.of(new RefState(head, toHex(digest.digest())));
+		} catch (IOException | NoSuchAlgorithmException e) {
+			return Optional.empty();
+		}
+	}
+
+	String getHead() {
+		return head;
+	}
+
+	String getFingerprint() {
+		return fingerprint;
+	}
+
+	private static String readHead(Path gitDir) throws IOException {
+		String head = new String(Files.readAllBytes(gitDir.resolve("HEAD")), UTF_8).trim();
+		if (!head.startsWith(SYMBOLIC_REF_PREFIX)) {
+			return head;
+		}
+		String refName = head.substring(SYMBOLIC_REF_PREFIX.length());
+		// A branch which is only stored in the packed refs is covered by their fingerprint.
+		Path ref = gitDir.resolve(refName);
+		if (isRegularFile(ref)) {
+			return new String(Files.readAllBytes(ref), UTF_8).trim();
+		}
+		return refName;
+	}
+
+	private static List<Path> listFiles(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static void update(MessageDigest digest, String line) {
+		digest.update(line.getBytes(UTF_8));
+		digest.update((byte) '\n');
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+}
@@ -1,14 +1,18 @@
 package com.github.janjoerke.gradle.version;
 
 import org.gradle.api.DefaultTask;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.TaskAction;
 
-public class Release extends DefaultTask {
+public abstract class Release extends DefaultTask {
+
+	// The version is wired in as a provider, the action must not read it from the project.
+	@Input
+	public abstract Property<String> getReleaseVersion();
 
-		
 	@TaskAction
 	public void release() {
-		
-
+		getLogger().info("Releasing version {}.", getReleaseVersion().get());
 	}
 }
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdSubclassMap;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.lib.RepositoryCache.FileKey;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.FS;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.ParseResult;
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+/**
+ * Resolves the version of the nearest tagged ancestor of HEAD. This is the only class touching JGit, so that builds
+ * reading the version from the cache of {@link VersionSeeker} never load it.
+ * <p>
+ * A resolution does not fit the time budget of about 100 ms of the configuration phase in large repositories: with
+ * 500,000 commits and 50,000 tags the first resolution in a JVM takes 0.5 to 1.6 s, most of it spent loading the tags,
+ * and only later resolutions in the same daemon take 25 to 70 ms. Lowering the bound of the walk does not help with
+ * that, only the version cache of {@link VersionSeeker} keeps builds within the budget.
+ */
+class TagResolver {
+
+	private static final Logger LOGGER = Logging.getLogger(TagResolver.class);
+
+	private static final String TAG_PREFIX = "v";
+
+	// Keeps the walk of a repository without a reachable version tag at the cost of loading the tags.
+	static final int DEFAULT_MAX_COMMITS = 10000;
+
+	private final int maxCommits;
+
+	TagResolver() {
+		this(DEFAULT_MAX_COMMITS);
+	}
+
+	/**
+	 * Creates a resolver which walks at most the specified number of commits, HEAD included, to find a version tag.
+	 */
+	TagResolver(int maxCommits) {
+		this.maxCommits = maxCommits;
+	}
+
+	/**
+	 * Returns the resolved version, or an empty optional if no version tag could be found before the bound of the walk
+	 * was reached. Such a result depends on the bound rather than on the repository and must not be cached.
+	 */
+	Optional<Version> resolve(Path workTree) throws IOException {
+		// Repositories stay cached, so a daemon keeps their refs and pack indexes loaded between builds.
+		try (Repository repository = RepositoryCache.open(FileKey.exact(findGitDir(workTree), FS.DETECTED), true)) {
+			return resolve(repository);
+		}
+	}
+
+	Optional<Version> resolve(Repository repository) throws IOException {
+		Ref head = repository.exactRef(Constants.HEAD);
+		if (head == null || head.getObjectId() == null) {
+			LOGGER.warn("HEAD does not point to a commit, version will be set to 0.0.0.0.");
+			return Optional.of(Version.forIntegers(0));
+		}
+		ObjectIdSubclassMap<TaggedCommit> tags = loadTags(repository);
+		Version version = versionOf(tags.get(head.getObjectId()));
+		if (version != null) {
+			return Optional.of(version);
+		}
+		try (RevWalk walk = new RevWalk(repository)) {
+			// Only the parents and commit times are needed to walk the history.
+			walk.setRetainBody(false);
+			walk.markStart(walk.parseCommit(head.getObjectId()));
+			int walked = 0;
+			for (RevCommit commit : walk) {
+				version = versionOf(tags.get(commit));
+				if (version != null) {
+					LOGGER.debug("Found version tag {} on ancestor {} of HEAD.", version, commit.name());
+					return Optional.of(version);
+				}
+				if (++walked >= maxCommits) {
+					LOGGER.debug("Stopped the walk after {} commits of HEAD.", walked);
+					return Optional.empty();
+				}
+			}
+		}
+		LOGGER.warn("No version tag could be found in the history of HEAD, version will be set to 0.0.0.0.");
+		return Optional.of(Version.forIntegers(0));
+	}
+
+	private ObjectIdSubclassMap<TaggedCommit> loadTags(Repository repository) throws IOException {
+		ObjectIdSubclassMap<TaggedCommit> tags = new ObjectIdSubclassMap<>();
+		RefDatabase refDatabase = repository.getRefDatabase();
+		for (Ref ref : refDatabase.getRefsByPrefix(Constants.R_TAGS)) {
+			ObjectId commitId = peel(refDatabase, ref);
+			if (commitId == null) {
+				continue;
+			}
+			String tagName = ref.getName().substring(Constants.R_TAGS.length());
+			TaggedCommit tagged = tags.get(commitId);
+			if (tagged == null) {
+				tags.add(new TaggedCommit(commitId, tagName));
+			} else {
+				tagged.addTagName(tagName);
+			}
+		}
+		return tags;
+	}
+
+	private ObjectId peel(RefDatabase refDatabase, Ref ref) throws IOException {
+		Ref peeled = ref.isPeeled() ? ref : refDatabase.peel(ref);
+		return peeled.getPeeledObjectId() != null ? peeled.getPeeledObjectId() : peeled.getObjectId();
+	}
+
+	// Tag names are only parsed for the commits the walk reaches.
+	private Version versionOf(TaggedCommit tagged) {
+		if (tagged == null) {
+			return null;
+		}
+		Version version = null;
+		for (String tagName : tagged.tagNames) {
+			Version tagVersion = parseTagName(tagName);
+			if (tagVersion != null && (version == null || tagVersion.compareTo(version) > 0)) {
+				version = tagVersion;
+			}
+		}
+		return version;
+	}
+
+	private Version parseTagName(String tagName) {
+		String name = tagName.startsWith(TAG_PREFIX) ? tagName.substring(TAG_PREFIX.length()) : tagName;
+		ParseResult result = Version.tryParse(name);
+		if (!result.isValid()) {
+			LOGGER.debug("Tag {} is not a version and will be ignored.", tagName);
+			return null;
+		}
+		return result.getVersion();
+	}
+
+	private File findGitDir(Path workTree) throws IOException {
+		return new FileRepositoryBuilder().setWorkTree(workTree.toFile()).setup().getGitDir();
+	}
+
+	private static class TaggedCommit extends ObjectId {
+
+		private static final long serialVersionUID = 1L;
+
+		private String[] tagNames;
+
+		TaggedCommit(ObjectId commitId, String tagName) {
+			super(commitId);
+			this.tagNames = new String[] { tagName };
+		}
+
+		void addTagName(String tagName) {
+			tagNames = Arrays.copyOf(tagNames, tagNames.length + 1);
+			tagNames[tagNames.length - 1] = tagName;
+		}
+	}
+}
@@ -25,14 +25,18 @@ package com.github.janjoerke.gradle.version;
 
 import static java.lang.String.format;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.List;
 
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.TaskContainer;
 import org.gradle.api.tasks.TaskProvider;
 
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
 public class VersionPlugin implements Plugin<Project> {
 
 	static final String GROUP_NAME = "version";
@@ -43,17 +47,45 @@ public class VersionPlugin implements Plugin<Project> {
 	static final String MINOR_TASK_NAME = "minor";
 	static final String RELEASE_TASK_NAME = "release";
 
+	static final String VERSION_SERVICE_NAME = "version";
+	static final String CACHE_DIR_NAME = "version";
+
 	@Override
 	public void apply(Project project) {
+		Provider<VersionService> service = registerVersionService(project);
+		Provider<Version> version = service.map(VersionService::getVersion);
+		project.setVersion(new LazyVersion(version));
+		project.getLogger().info("The version of {} will be resolved when it is first read.", project);
 		TaskContainer tasks = project.getTasks();
-		TaskProvider<Release> releaseTask = registerReleaseTask(tasks);
+		TaskProvider<Release> releaseTask = registerReleaseTask(tasks, service, version);
 		registerConvenientTasks(tasks, releaseTask);
 	}
 
-	private TaskProvider<Release> registerReleaseTask(TaskContainer tasks) {
+	private Provider<VersionService> registerVersionService(Project project) {
+		// One service per build, so that all of its projects share a single resolution. The repository is only looked
+		// up once the version is read.
+		File rootDir = project.getRootDir();
+		return project.getGradle().getSharedServices().registerIfAbsent(
+				format("%s:%s", VERSION_SERVICE_NAME, rootDir), VersionService.class, spec -> {
+					spec.getParameters().getVersion().set(project.getProviders().of(VersionSource.class, source -> {
+						source.getParameters().getRootDir().set(rootDir);
+						source.getParameters().getCacheDir().set(new File(projectCacheDir(project), CACHE_DIR_NAME));
+					}));
+				});
+	}
+
+	private File projectCacheDir(Project project) {
+		File projectCacheDir = project.getGradle().getStartParameter().getProjectCacheDir();
+		return projectCacheDir != null ? projectCacheDir : new File(project.getRootDir(), ".gradle");
+	}
+
+	private TaskProvider<Release> registerReleaseTask(TaskContainer tasks, Provider<VersionService> service,
+			Provider<Version> version) {
 		return tasks.register(RELEASE_TASK_NAME, Release.class, task -> {
 			task.setGroup(GROUP_NAME);
 			task.setDescription("Executes a release and tags the current commit with the current version.");
+			task.usesService(service);
+			task.getReleaseVersion().set(version.map(Version::toString));
 		});
 	}
 
@@ -1,36 +1,147 @@
 package com.github.janjoerke.gradle.version;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.isRegularFile;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Stream;
 
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.ParseResult;
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
 
 public class VersionSeeker {
 
 	private static final Logger LOGGER = Logging.getLogger(VersionSeeker.class);
 
+	static final String CACHE_FILE_NAME = "version-cache.properties";
+
+	private static final String CACHE_FORMAT = "1";
+
+	private static final String FORMAT_KEY = "format";
+	private static final String HEAD_KEY = "head";
+	private static final String FINGERPRINT_KEY = "fingerprint";
+	private static final String VERSION_KEY = "version";
+
+	private final Path cacheDir;
+
+	private final int maxCommits;
+
+	public VersionSeeker() {
+		this(null);
+	}
+
+	/**
+	 * Creates a seeker which keeps the last resolved version in the specified directory, usually the .gradle
+	 * directory of the project. The version is read from there as long as HEAD and the tags do not change.
+	 */
+	public VersionSeeker(Path cacheDir) {
+		this(cacheDir, TagResolver.DEFAULT_MAX_COMMITS);
+	}
+
+	VersionSeeker(Path cacheDir, int maxCommits) {
+		this.cacheDir = cacheDir;
+		this.maxCommits = maxCommits;
+	}
+
 	public Version seek(Path path) {
 		Optional<Path> repositoryPath = findRepository(path);
 		if (!repositoryPath.isPresent()) {
 			LOGGER.warn("No git repository could be found, version will be set to 0.0.0.0.");
 			return Version.forIntegers(0);
 		}
-		return null;
+		Optional<RefState> refState = cacheDir != null ? RefState.read(repositoryPath.get()) : Optional.empty();
+		Optional<Version> cachedVersion = refState.flatMap(this::readCache);
+		if (cachedVersion.isPresent()) {
+			LOGGER.info("Version {} was read from the cache, HEAD and the tags did not change.", cachedVersion.get());
+			return cachedVersion.get();
+		}
+		Path workTree = repositoryPath.get().getParent();
+		try {
+			Optional<Version> version = new TagResolver(maxCommits).resolve(workTree);
+			if (!version.isPresent()) {
+				// Not cached, so that every build repeats the warning until a version tag is reachable.
+				LOGGER.warn("No version tag could be found in the last {} commits of HEAD, version will be set to "
+						+ "0.0.0.0. Tag a recent commit to fix this.", maxCommits);
+				return Version.forIntegers(0);
+			}
+			refState.ifPresent(state -> writeCache(state, version.get()));
+			return version.get();
+		} catch (IOException e) {
+			LOGGER.warn("The git repository {} could not be read, version will be set to 0.0.0.0.", workTree, e);
+			return Version.forIntegers(0);
+		}
+	}
+
+	private Optional<Version> readCache(RefState refState) {
+		Path cacheFile = cacheDir.resolve(CACHE_FILE_NAME);
+		if (!isRegularFile(cacheFile)) {
+			return Optional.empty();
+		}
+		Properties cache = new Properties();
+		try (Reader reader = Files.newBufferedReader(cacheFile, UTF_8)) {
+			cache.load(reader);
+		} catch (IOException | IllegalArgumentException e) {
+			LOGGER.debug("The version cache {} could not be read.", cacheFile, e);
+			return Optional.empty();
+		}
+		if (!CACHE_FORMAT.equals(cache.getProperty(FORMAT_KEY)) || !refState.getHead().equals(cache.getProperty(HEAD_KEY))
+				|| !refState.getFingerprint().equals(cache.getProperty(FINGERPRINT_KEY))) {
+			return Optional.empty();
+		}
+		ParseResult result = Version.tryParse(cache.getProperty(VERSION_KEY, ""));
+		return result.isValid() ? Optional.of(result.getVersion()) : Optional.empty();
+	}
+
+	private void writeCache(RefState refState, Version version) {
+		Properties cache = new Properties();
+		cache.setProperty(FORMAT_KEY, CACHE_FORMAT);
+		cache.setProperty(HEAD_KEY, refState.getHead());
+		cache.setProperty(FINGERPRINT_KEY, refState.getFingerprint());
+		cache.setProperty(VERSION_KEY, version.toString());
+		Path temporaryFile = null;
+		try {
+			Files.createDirectories(cacheDir);
+			// Written to a temporary file first, so that concurrent builds never read a partial cache.
+			temporaryFile = Files.createTempFile(cacheDir, CACHE_FILE_NAME, ".tmp");
+			try (Writer writer = Files.newBufferedWriter(temporaryFile, UTF_8)) {
+				cache.store(writer, null);
+			}
+			Files.move(temporaryFile, cacheDir.resolve(CACHE_FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOGGER.debug("The version cache in {} could not be written.", cacheDir, e);
+			deleteQuietly(temporaryFile);
+		}
+	}
+
+	private void deleteQuietly(Path file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			// Do nothing, the file is only left over.
+		}
 	}
 
 	private Optional<Path> findRepository(Path path) {
 		Path _path = path;
 		while (_path != null) {
-			if (!isDirectory(_path)) {
-				try {
-					Optional<Path> git = Files.list(_path).filter(p -> p.endsWith(".git")).findFirst();
+			if (isDirectory(_path)) {
+				try (Stream<Path> children = Files.list(_path)) {
+					Optional<Path> git = children.filter(p -> p.endsWith(".git")).findFirst();
 					if (git.isPresent()) {
 						return Optional.of(_path.resolve(git.get()));
 					}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version;
+
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+/**
+ * Resolves the version of a repository once per build. All projects of the repository share the service, concurrent
+ * requests of parallel projects wait for the first one to finish its resolution.
+ */
+public abstract class VersionService implements BuildService<VersionService.Parameters> {
+
+	public interface Parameters extends BuildServiceParameters {
+
+		// Backed by a VersionSource, so that the configuration cache checks the version before it is reused.
+		Property<String> getVersion();
+	}
+
+	private Version version;
+
+	public synchronized Version getVersion() {
+		if (version == null) {
+			version = Version.valueOf(getParameters().getVersion().get());
+		}
+		return version;
+	}
+}
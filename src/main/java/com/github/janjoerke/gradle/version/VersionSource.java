@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version;
+
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.ValueSource;
+import org.gradle.api.provider.ValueSourceParameters;
+
+/**
+ * The version of the repository containing the root directory, as an input of the build configuration. Gradle obtains
+ * it again before it reuses a configuration which read the version. As long as HEAD and the tags do not change, this
+ * only reads the ref files and the cache, without opening the repository. After a new commit or tag it resolves the
+ * version through the repository, loading all tags and walking at most {@link TagResolver#DEFAULT_MAX_COMMITS} commits,
+ * and the configuration is reused if the version stayed the same.
+ */
+public abstract class VersionSource implements ValueSource<String, VersionSource.Parameters> {
+
+	public interface Parameters extends ValueSourceParameters {
+
+		DirectoryProperty getRootDir();
+
+		DirectoryProperty getCacheDir();
+	}
+
+	private static final Logger LOGGER = Logging.getLogger(VersionSource.class);
+
+	@Override
+	public String obtain() {
+		Parameters parameters = getParameters();
+		LOGGER.info("Resolving the version of {}.", parameters.getRootDir().get());
+		VersionSeeker seeker = new VersionSeeker(parameters.getCacheDir().get().getAsFile().toPath());
+		return seeker.seek(parameters.getRootDir().get().getAsFile().toPath()).toString();
+	}
+}
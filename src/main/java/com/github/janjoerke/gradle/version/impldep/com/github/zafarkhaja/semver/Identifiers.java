@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed table of the identifiers most commonly found in pre-release
+ * versions and build metadata.
+ *
+ * The parser looks the identifiers up in the table before creating new
+ * strings for them, so that versions such as {@code 1.0.0.0-rc.1} or
+ * {@code 1.0.0.0-SNAPSHOT} share their identifier strings. Pre-release
+ * versions consisting of a common word, optionally followed by a small
+ * number, are shared as whole {@code MetadataVersion} instances.
+ */
+final class Identifiers {
+
+    /**
+     * The common alphanumeric identifiers.
+     */
+    private static final String[] WORDS = {
+        "alpha", "beta", "rc", "RC", "SNAPSHOT", "snapshot", "M", "m",
+        "pre", "preview", "dev", "final", "FINAL", "GA", "RELEASE",
+        "release", "build", "hotfix", "candidate", "milestone", "a", "b"
+    };
+
+    /**
+     * The number of common numeric identifiers, which are the integers
+     * from {@code 0} up to this number exclusive.
+     */
+    private static final int NUMBERS = 100;
+
+    /**
+     * The length of the longest common identifier.
+     */
+    private static final int MAX_LENGTH = 9;
+
+    /**
+     * The common identifiers, the words followed by the numbers.
+     */
+    private static final String[] COMMON = new String[WORDS.length + NUMBERS];
+
+    /**
+     * The open addressing hash table of the common identifiers, holding the
+     * indexes into {@code COMMON} plus one and zero for empty slots.
+     */
+    private static final int[] TABLE = new int[512];
+
+    /**
+     * The shared pre-release versions consisting of a single common
+     * identifier, by index of the identifier.
+     */
+    private static final MetadataVersion[] SINGLES = new MetadataVersion[COMMON.length];
+
+    /**
+     * The lazily created shared pre-release versions consisting of a common
+     * word followed by a common number.
+     */
+    private static final AtomicReferenceArray<MetadataVersion> PAIRS =
+        new AtomicReferenceArray<MetadataVersion>(WORDS.length * NUMBERS);
+
+    static {
+        System.arraycopy(WORDS, 0, COMMON, 0, WORDS.length);
+        for (int i = 0; i < NUMBERS; i++) {
+            COMMON[WORDS.length + i] = String.valueOf(i);
+        }
+        for (int i = 0; i < COMMON.length; i++) {
+            String ident = COMMON[i];
+            int slot = hash(ident, 0, ident.length());
+            while (TABLE[slot] != 0) {
+                slot = (slot + 1) & (TABLE.length - 1);
+            }
+            TABLE[slot] = i + 1;
+            SINGLES[i] = new MetadataVersion(new String[] { ident });
+        }
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private Identifiers() {
+    }
+
+    /**
+     * Returns the identifier of the specified range, reusing the common
+     * identifier string if there is one.
+     *
+     * @param input the input containing the identifier
+     * @param start the start offset of the identifier, inclusive
+     * @param end   the end offset of the identifier, exclusive
+     * @return the identifier string
+     */
+    static String intern(CharSequence input, int start, int end) {
+        int index = indexOf(input, start, end);
+        if (index >= 0) {
+            return COMMON[index];
+        }
+        return input.subSequence(start, end).toString();
+    }
+
+    /**
+     * Returns the pre-release version with the specified identifiers,
+     * which is a shared instance for the common pre-release versions.
+     *
+     * @param idents the valid identifiers of the pre-release version, the
+     *               array must not be modified afterwards
+     * @return the pre-release version
+     */
+    static MetadataVersion preRelease(String[] idents) {
+        if (idents.length == 1) {
+            int index = indexOf(idents[0], 0, idents[0].length());
+            if (index >= 0) {
+                return SINGLES[index];
+            }
+        } else if (idents.length == 2) {
+            int word = indexOf(idents[0], 0, idents[0].length());
+            int number = indexOf(idents[1], 0, idents[1].length()) - WORDS.length;
+            if (word >= 0 && word < WORDS.length && number >= 0) {
+                int slot = word * NUMBERS + number;
+                MetadataVersion shared = PAIRS.get(slot);
+                if (shared == null) {
+                    PAIRS.compareAndSet(slot, null, new MetadataVersion(
+                        new String[] { COMMON[word], COMMON[WORDS.length + number] }));
+                    shared = PAIRS.get(slot);
+                }
+                return shared;
+            }
+        }
+        return new MetadataVersion(idents);
+    }
+
+    /**
+     * Returns the index of the common identifier equal to the specified range.
+     *
+     * @param input the input containing the identifier
+     * @param start the start offset of the identifier, inclusive
+     * @param end   the end offset of the identifier, exclusive
+     * @return the index into {@code COMMON} or {@code -1} if the identifier
+     *         is not a common one
+     */
+    private static int indexOf(CharSequence input, int start, int end) {
+        if (end - start > MAX_LENGTH) {
+            return -1;
+        }
+        int slot = hash(input, start, end);
+        int entry;
+        while ((entry = TABLE[slot]) != 0) {
+            if (matches(COMMON[entry - 1], input, start, end)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & (TABLE.length - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if the identifier equals the specified range.
+     *
+     * @param ident the identifier
+     * @param input the input containing the range
+     * @param start the start offset of the range, inclusive
+     * @param end   the end offset of the range, exclusive
+     * @return {@code true} if the characters are equal or {@code false} otherwise
+     */
+    private static boolean matches(String ident, CharSequence input, int start, int end) {
+        if (ident.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < ident.length(); i++) {
+            if (ident.charAt(i) != input.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the table slot of the specified range.
+     *
+     * @param input the input containing the range
+     * @param start the start offset of the range, inclusive
+     * @param end   the end offset of the range, exclusive
+     * @return the first table slot to probe
+     */
+    private static int hash(CharSequence input, int start, int end) {
+        int hash = end - start;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + input.charAt(i);
+        }
+        hash ^= hash >>> 9;
+        return hash & (TABLE.length - 1);
+    }
+}
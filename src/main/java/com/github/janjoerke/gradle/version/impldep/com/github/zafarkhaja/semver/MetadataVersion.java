@@ -100,17 +100,30 @@ class MetadataVersion implements Comparable<MetadataVersion> {
         }
     }
 
+    /**
+     * The marker of an identifier that is not numeric.
+     */
+    private static final long NOT_NUMERIC = Long.MIN_VALUE;
+
     /**
      * The array containing the version's identifiers.
      */
     private final String[] idents;
 
+    /**
+     * The integer values of the identifiers or {@code NOT_NUMERIC}
+     * for the identifiers that are not integers, {@code null} if none
+     * of the identifiers is an integer.
+     */
+    private final long[] numbers;
+
     /**
      * Constructs a {@code MetadataVersion} instance with identifiers.
      * @param identifiers the version's identifiers
      */
     MetadataVersion(String[] identifiers) {
         idents = identifiers;
+        numbers = (identifiers == null) ? null : numbersOf(identifiers);
     }
 
     /**
@@ -119,13 +132,13 @@ class MetadataVersion implements Comparable<MetadataVersion> {
      * @return a new instance of the {@code MetadataVersion} class
      */
     MetadataVersion increment() {
-        String[] ids  = idents;
-        String lastId = ids[ids.length - 1];
-        if (isInt(lastId)) {
-            int intId = Integer.parseInt(lastId);
-            ids[ids.length - 1] = String.valueOf(++intId);
+        String[] ids;
+        long lastNumber = numberAt(idents.length - 1);
+        if (lastNumber != NOT_NUMERIC) {
+            ids = idents.clone();
+            ids[ids.length - 1] = String.valueOf(lastNumber + 1);
         } else {
-            ids = Arrays.copyOf(ids, ids.length + 1);
+            ids = Arrays.copyOf(idents, idents.length + 1);
             ids[ids.length - 1] = String.valueOf(1);
         }
         return new MetadataVersion(ids);
@@ -170,6 +183,9 @@ class MetadataVersion implements Comparable<MetadataVersion> {
      */
     @Override
     public int compareTo(MetadataVersion other) {
+        if (this == other) {
+            return 0;
+        }
         if (other == MetadataVersion.NULL) {
             /**
              * Pre-release versions have a lower precedence than
@@ -177,7 +193,7 @@ class MetadataVersion implements Comparable<MetadataVersion> {
              */
             return -1;
         }
-        int result = compareIdentifierArrays(other.idents);
+        int result = compareIdentifierArrays(other);
         if (result == 0) {
             /**
              * A larger set of pre-release fields has a higher
@@ -190,17 +206,17 @@ class MetadataVersion implements Comparable<MetadataVersion> {
     }
 
     /**
-     * Compares two arrays of identifiers.
+     * Compares the identifiers of two versions.
      *
-     * @param otherIdents the identifiers of the other version
+     * @param other the other version
      * @return integer result of comparison compatible with
      *         the {@code Comparable.compareTo} method
      */
-    private int compareIdentifierArrays(String[] otherIdents) {
+    private int compareIdentifierArrays(MetadataVersion other) {
         int result = 0;
-        int length = getLeastCommonArrayLength(idents, otherIdents);
+        int length = getLeastCommonArrayLength(idents, other.idents);
         for (int i = 0; i < length; i++) {
-            result = compareIdentifiers(idents[i], otherIdents[i]);
+            result = compareIdentifiers(other, i);
             if (result != 0) {
                 break;
             }
@@ -220,34 +236,122 @@ class MetadataVersion implements Comparable<MetadataVersion> {
     }
 
     /**
-     * Compares two identifiers.
+     * Compares the identifiers at the same index of two versions.
+     *
+     * Integer identifiers are compared numerically, all other
+     * identifiers are compared lexically in the ASCII sort order.
+     * Integer identifiers have a lower precedence than all other
+     * identifiers. (SemVer p.11)
      *
-     * @param ident1 the first identifier
-     * @param ident2 the second identifier
+     * @param other the other version
+     * @param index the index of the identifiers
      * @return integer result of comparison compatible with
      *         the {@code Comparable.compareTo} method
      */
-    private int compareIdentifiers(String ident1, String ident2) {
-        if (isInt(ident1) && isInt(ident2)) {
-            return Integer.parseInt(ident1) - Integer.parseInt(ident2);
-        } else {
-            return ident1.compareTo(ident2);
+    private int compareIdentifiers(MetadataVersion other, int index) {
+        long number1 = numberAt(index);
+        long number2 = other.numberAt(index);
+        if (number1 != NOT_NUMERIC) {
+            return (number2 != NOT_NUMERIC) ? Long.compare(number1, number2) : -1;
+        }
+        if (number2 != NOT_NUMERIC) {
+            return 1;
         }
+        return idents[index].compareTo(other.idents[index]);
     }
 
     /**
-     * Checks if the specified string is an integer.
+     * Appends the identifiers to a sort key, followed by the end marker.
      *
-     * @param str the string to check
-     * @return {@code true} if the specified string is an integer
-     *         or {@code false} otherwise
-     */
-    private boolean isInt(String str) {
-        try {
-            Integer.parseInt(str);
-        } catch (NumberFormatException e) {
-            return false;
+     * Each identifier is introduced by its kind, the integer ones sorting
+     * before the others, and the end marker sorts before any identifier, so
+     * the keys order like {@code compareTo}.
+     *
+     * @param key the sort key to append to
+     */
+    void appendSortKey(SortKey key) {
+        for (int i = 0; i < idents.length; i++) {
+            long number = numberAt(i);
+            if (number != NOT_NUMERIC) {
+                key.put(SortKey.NUMERIC);
+                key.putSigned((int) number);
+            } else {
+                key.put(SortKey.ALPHANUMERIC);
+                key.putIdentifier(idents[i]);
+            }
+        }
+        key.put(SortKey.END);
+    }
+
+    /**
+     * Returns the integer value of the identifier at the specified index.
+     *
+     * @param index the index of the identifier
+     * @return the integer value of the identifier or {@code NOT_NUMERIC}
+     */
+    private long numberAt(int index) {
+        return (numbers == null) ? NOT_NUMERIC : numbers[index];
+    }
+
+    /**
+     * Classifies the identifiers and parses the integer ones.
+     *
+     * @param identifiers the identifiers to classify
+     * @return the integer values of the identifiers or {@code NOT_NUMERIC}
+     *         for the identifiers that are not integers, {@code null} if
+     *         none of the identifiers is an integer
+     */
+    private static long[] numbersOf(String[] identifiers) {
+        long[] numbers = null;
+        for (int i = 0; i < identifiers.length; i++) {
+            long number = numberOf(identifiers[i]);
+            if (number != NOT_NUMERIC) {
+                if (numbers == null) {
+                    numbers = new long[identifiers.length];
+                    Arrays.fill(numbers, NOT_NUMERIC);
+                }
+                numbers[i] = number;
+            }
+        }
+        return numbers;
+    }
+
+    /**
+     * Parses an identifier as an integer without raising an exception.
+     *
+     * An identifier is an integer if {@code Integer.parseInt} accepts it,
+     * that is an optionally signed sequence of digits within the
+     * {@code int} range.
+     *
+     * @param ident the identifier to parse
+     * @return the integer value of the identifier or {@code NOT_NUMERIC}
+     */
+    private static long numberOf(String ident) {
+        int length = ident.length();
+        int start = 0;
+        boolean negative = false;
+        if (length > 0 && (ident.charAt(0) == '-' || ident.charAt(0) == '+')) {
+            negative = ident.charAt(0) == '-';
+            start = 1;
+        }
+        if (start == length) {
+            return NOT_NUMERIC;
+        }
+        long value = 0;
+        for (int i = start; i < length; i++) {
+            char chr = ident.charAt(i);
+            if (chr < '0' || chr > '9') {
+                return NOT_NUMERIC;
+            }
+            value = value * 10 + (chr - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return NOT_NUMERIC;
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            return NOT_NUMERIC;
         }
-        return true;
+        return value;
     }
 }
@@ -27,6 +27,10 @@ package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver
 /**
  * The {@code NormalVersion} class represents the version core.
  *
+ * Versions whose numbers fit into 16 bits each are additionally packed into a
+ * single {@code long}, so that they are ordered by one unsigned comparison.
+ * Versions with larger numbers fall back to comparing the numbers one by one.
+ *
  * This class is immutable and hence thread-safe.
  *
  * @author Zafar Khaja <zafarkhaja@gmail.com>
@@ -54,6 +58,30 @@ class NormalVersion implements Comparable<NormalVersion> {
      */
     private final int subBuild;
 
+    /**
+     * The version numbers packed into 16 bits each, major version first, or
+     * {@code UNPACKED} if one of the numbers is too large.
+     */
+    private final long packed;
+
+    /**
+     * The number of bits used for each version number in the packed form.
+     */
+    private static final int PACKED_BITS = 16;
+
+    /**
+     * The largest version number that can be packed.
+     */
+    private static final int PACKED_MAX = (1 << PACKED_BITS) - 1;
+
+    /**
+     * The marker of a version that has no packed form.
+     *
+     * It collides with the packed form of {@code 65535.65535.65535.65535},
+     * which therefore simply takes the unpacked path as well.
+     */
+    static final long UNPACKED = -1L;
+
     /**
      * Constructs a {@code NormalVersion} with the major, minor and patch version
      * numbers.
@@ -74,6 +102,49 @@ class NormalVersion implements Comparable<NormalVersion> {
         this.minor = minor;
         this.build = build;
         this.subBuild = subBuild;
+        this.packed = pack(major, minor, build, subBuild);
+    }
+
+    /**
+     * Packs the version numbers into a single {@code long}.
+     *
+     * @param major    the major version number
+     * @param minor    the minor version number
+     * @param build    the build version number
+     * @param subBuild the subBuild version number
+     * @return the packed version numbers or {@code UNPACKED} if one of the
+     *         numbers is too large
+     */
+    static long pack(int major, int minor, int build, int subBuild) {
+        if ((major | minor | build | subBuild) > PACKED_MAX) {
+            return UNPACKED;
+        }
+        return ((long) major << (3 * PACKED_BITS))
+            | ((long) minor << (2 * PACKED_BITS))
+            | ((long) build << PACKED_BITS)
+            | subBuild;
+    }
+
+    /**
+     * Restores a normal version from its packed numbers.
+     *
+     * @param packed the packed numbers, not {@code UNPACKED}
+     * @return the normal version
+     */
+    static NormalVersion unpack(long packed) {
+        return new NormalVersion(unpack(packed, 0), unpack(packed, 1), unpack(packed, 2), unpack(packed, 3));
+    }
+
+    /**
+     * Extracts a single version number from the packed numbers.
+     *
+     * @param packed the packed numbers, not {@code UNPACKED}
+     * @param index  the index of the number, {@code 0} for the major version
+     *               up to {@code 3} for the subBuild version
+     * @return the version number
+     */
+    static int unpack(long packed, int index) {
+        return (int) (packed >>> ((3 - index) * PACKED_BITS)) & PACKED_MAX;
     }
 
     /**
@@ -112,6 +183,16 @@ class NormalVersion implements Comparable<NormalVersion> {
         return subBuild;
     }
 
+    /**
+     * Returns the packed version numbers.
+     *
+     * @return the packed version numbers or {@code UNPACKED} if one of the
+     *         numbers is too large to be packed
+     */
+    long getPacked() {
+        return packed;
+    }
+
     /**
      * Increments the major version number.
      *
@@ -153,13 +234,16 @@ class NormalVersion implements Comparable<NormalVersion> {
      */
     @Override
     public int compareTo(NormalVersion other) {
-        int result = major - other.major;
+        if (packed != UNPACKED && other.packed != UNPACKED) {
+            return Long.compareUnsigned(packed, other.packed);
+        }
+        int result = Integer.compare(major, other.major);
         if (result == 0) {
-            result = minor - other.minor;
+            result = Integer.compare(minor, other.minor);
             if (result == 0) {
-                result = build - other.build;
+                result = Integer.compare(build, other.build);
                 if (result == 0) {
-                    result = subBuild - other.subBuild;
+                    result = Integer.compare(subBuild, other.subBuild);
                 }
             }
         }
@@ -177,7 +261,11 @@ class NormalVersion implements Comparable<NormalVersion> {
         if (!(other instanceof NormalVersion)) {
             return false;
         }
-        return compareTo((NormalVersion) other) == 0;
+        NormalVersion that = (NormalVersion) other;
+        if (packed != UNPACKED || that.packed != UNPACKED) {
+            return packed == that.packed;
+        }
+        return compareTo(that) == 0;
     }
 
     /**
@@ -185,6 +273,9 @@ class NormalVersion implements Comparable<NormalVersion> {
      */
     @Override
     public int hashCode() {
+        if (packed != UNPACKED) {
+            return Long.hashCode(packed);
+        }
         int hash = 17;
         hash = 31 * hash + major;
         hash = 31 * hash + minor;
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+/**
+ * The result of parsing a version string without throwing exceptions.
+ *
+ * A result holds either the parsed version or the failure. The exception
+ * describing the failure is only created when it is asked for, so that
+ * rejecting invalid input costs no more than parsing valid input.
+ *
+ * @see Version#tryParse(CharSequence)
+ */
+public final class ParseResult {
+
+    /**
+     * The parsed version or {@code null} if the parse failed.
+     */
+    private final Version version;
+
+    /**
+     * The parser which recorded the failure or {@code null} if the parse succeeded.
+     */
+    private final VersionParser failedParser;
+
+    /**
+     * Constructs a {@code ParseResult} instance for a parsed version.
+     *
+     * @param version the parsed version
+     */
+    ParseResult(Version version) {
+        this.version = version;
+        this.failedParser = null;
+    }
+
+    /**
+     * Constructs a {@code ParseResult} instance for a failed parse.
+     *
+     * @param failedParser the parser which recorded the failure
+     */
+    ParseResult(VersionParser failedParser) {
+        this.version = null;
+        this.failedParser = failedParser;
+    }
+
+    /**
+     * Checks if the input is a valid version.
+     *
+     * @return {@code true} if the input is valid or {@code false} otherwise
+     */
+    public boolean isValid() {
+        return version != null;
+    }
+
+    /**
+     * Returns the parsed version.
+     *
+     * @return the parsed version or {@code null} if the input is invalid
+     */
+    public Version getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the offset in the input at which the parse failed.
+     *
+     * @return the offset of the failure or {@code -1} if the input is valid
+     */
+    public int getErrorOffset() {
+        return (failedParser == null) ? -1 : failedParser.getFailureOffset();
+    }
+
+    /**
+     * Creates the exception which {@code Version.valueOf} throws for the input.
+     *
+     * This is an {@code IllegalArgumentException} for {@code NULL} or empty
+     * input, a {@code NumberFormatException} for a too large version number
+     * and a {@code ParseException} otherwise.
+     *
+     * @return a new exception describing the failure or {@code null} if the
+     *         input is valid
+     */
+    public RuntimeException getException() {
+        return (failedParser == null) ? null : failedParser.failure();
+    }
+
+    /**
+     * Returns the string representation of the version or the failure.
+     *
+     * @return the string representation of this result
+     */
+    @Override
+    public String toString() {
+        return (failedParser == null) ? version.toString() : "Invalid version: " + getException();
+    }
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of parsing many version strings at once.
+ *
+ * Invalid inputs do not abort the parsing, they are collected along with
+ * their failures instead.
+ *
+ * @see Versions#parseAll(List)
+ */
+public final class ParsedVersions {
+
+    /**
+     * The parsed versions by input index, {@code null} for the invalid inputs.
+     */
+    private final Version[] versions;
+
+    /**
+     * The indexes of the invalid inputs in ascending order.
+     */
+    private final int[] invalidIndexes;
+
+    /**
+     * The failures of the invalid inputs, parallel to {@code invalidIndexes}.
+     */
+    private final ParseResult[] failures;
+
+    /**
+     * Constructs a {@code ParsedVersions} instance.
+     *
+     * @param versions       the parsed versions by input index
+     * @param invalidIndexes the indexes of the invalid inputs
+     * @param failures       the failures of the invalid inputs
+     */
+    ParsedVersions(Version[] versions, int[] invalidIndexes, ParseResult[] failures) {
+        this.versions = versions;
+        this.invalidIndexes = invalidIndexes;
+        this.failures = failures;
+    }
+
+    /**
+     * Returns the number of inputs.
+     *
+     * @return the number of inputs
+     */
+    public int size() {
+        return versions.length;
+    }
+
+    /**
+     * Returns the version parsed from the input at the specified index.
+     *
+     * @param index the index of the input
+     * @return the version or {@code null} if the input is invalid
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Version getVersion(int index) {
+        return versions[index];
+    }
+
+    /**
+     * Returns the versions parsed from the valid inputs.
+     *
+     * @return an unmodifiable list of the versions in input order
+     */
+    public List<Version> getVersions() {
+        List<Version> valid = new ArrayList<Version>(versions.length - invalidIndexes.length);
+        for (Version version : versions) {
+            if (version != null) {
+                valid.add(version);
+            }
+        }
+        return Collections.unmodifiableList(valid);
+    }
+
+    /**
+     * Checks if any of the inputs is invalid.
+     *
+     * @return {@code true} if an input is invalid or {@code false} otherwise
+     */
+    public boolean hasInvalidInputs() {
+        return invalidIndexes.length > 0;
+    }
+
+    /**
+     * Returns the indexes of the invalid inputs.
+     *
+     * @return a new array of the indexes in ascending order
+     */
+    public int[] getInvalidIndexes() {
+        return invalidIndexes.clone();
+    }
+
+    /**
+     * Returns the failures of the invalid inputs.
+     *
+     * @return an unmodifiable list of the failures, in the order of
+     *         {@link #getInvalidIndexes()}
+     */
+    public List<ParseResult> getFailures() {
+        return Collections.unmodifiableList(Arrays.asList(failures));
+    }
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+import java.util.Arrays;
+
+/**
+ * A builder of binary sort keys for versions.
+ *
+ * The keys of two versions compare in unsigned lexicographic byte order like
+ * the versions themselves. Each part of a key is self-delimiting, so no key
+ * of an unequal version is a prefix of another one and further parts can be
+ * appended without affecting the order of the preceding ones.
+ *
+ * @see Version#toSortKey()
+ */
+final class SortKey {
+
+    /**
+     * Marks the end of a list of identifiers or a missing build metadata.
+     */
+    static final int END = 0x01;
+
+    /**
+     * Introduces an integer identifier.
+     */
+    static final int NUMERIC = 0x02;
+
+    /**
+     * Introduces an alphanumeric identifier.
+     */
+    static final int ALPHANUMERIC = 0x03;
+
+    /**
+     * Marks a missing pre-release version, which has the highest precedence.
+     */
+    static final int RELEASE = 0x04;
+
+    /**
+     * The bytes of the key.
+     */
+    private byte[] bytes = new byte[32];
+
+    /**
+     * The number of bytes of the key.
+     */
+    private int length;
+
+    /**
+     * Appends a single byte.
+     *
+     * @param value the byte to append
+     */
+    void put(int value) {
+        if (length == bytes.length) {
+            bytes = Arrays.copyOf(bytes, length * 2);
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * Appends a non-negative integer as its number of significant bytes
+     * followed by these bytes, so that larger integers have larger keys.
+     *
+     * @param value the non-negative integer to append
+     */
+    void putUnsigned(int value) {
+        int size = (Integer.SIZE - Integer.numberOfLeadingZeros(value) + 7) / 8;
+        put(size);
+        for (int i = size - 1; i >= 0; i--) {
+            put(value >>> (i * 8));
+        }
+    }
+
+    /**
+     * Appends an integer as four bytes with the sign bit flipped,
+     * so that larger integers have larger keys.
+     *
+     * @param value the integer to append
+     */
+    void putSigned(int value) {
+        int flipped = value ^ Integer.MIN_VALUE;
+        put(flipped >>> 24);
+        put(flipped >>> 16);
+        put(flipped >>> 8);
+        put(flipped);
+    }
+
+    /**
+     * Appends an identifier followed by a zero byte.
+     *
+     * The identifiers consist of ASCII alphanumerics and hyphens only, so
+     * each character is a single non-zero byte and the key orders like
+     * {@code String.compareTo}, with a prefix before its extensions.
+     *
+     * @param ident the validated identifier to append
+     */
+    void putIdentifier(String ident) {
+        for (int i = 0; i < ident.length(); i++) {
+            put(ident.charAt(i));
+        }
+        put(0);
+    }
+
+    /**
+     * Returns the bytes of the key.
+     *
+     * @return a new array with the bytes of the key
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Compares two keys in unsigned lexicographic byte order.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @return integer result of comparison compatible with
+     *         the {@code Comparable.compareTo} method
+     */
+    static int compare(byte[] key1, byte[] key2) {
+        int length = Math.min(key1.length, key2.length);
+        for (int i = 0; i < length; i++) {
+            if (key1[i] != key2[i]) {
+                return (key1[i] & 0xFF) - (key2[i] & 0xFF);
+            }
+        }
+        return key1.length - key2.length;
+    }
+}
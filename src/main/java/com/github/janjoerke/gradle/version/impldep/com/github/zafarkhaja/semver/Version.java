@@ -26,6 +26,7 @@ package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver
 
 import java.util.Comparator;
 
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.CachingExpressionParser;
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.Expression;
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.ExpressionParser;
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.LexerException;
@@ -43,9 +44,15 @@ import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.
 public class Version implements Comparable<Version> {
 
     /**
-     * The normal version.
+     * The normal version numbers packed into a single {@code long} or
+     * {@code UNPACKED} if one of them is too large to be packed.
      */
-    private final NormalVersion normal;
+    private final long packed;
+
+    /**
+     * The normal version if it cannot be packed or {@code null} otherwise.
+     */
+    private final NormalVersion large;
 
     /**
      * The pre-release version.
@@ -68,6 +75,22 @@ public class Version implements Comparable<Version> {
      */
     private static final String BUILD_PREFIX = "+";
 
+    /**
+     * The maximum number of expressions memoized by {@code Version.satisfies}.
+     */
+    private static final int EXPRESSION_CACHE_SIZE = 1024;
+
+    /**
+     * The parser used by {@code Version.satisfies}, shared by all threads.
+     */
+    private static final Parser<Expression> EXPRESSION_PARSER = new CachingExpressionParser(
+            ExpressionParser.newInstance(), EXPRESSION_CACHE_SIZE);
+
+    /**
+     * The cache used by {@code Version.valueOf} or {@code null} if disabled.
+     */
+    private static volatile VersionCache cache;
+
     /**
      * A mutable builder for the immutable {@code Version} class.
      */
@@ -78,16 +101,31 @@ public class Version implements Comparable<Version> {
          */
         private String normal;
 
+        /**
+         * The normal version set from integers.
+         */
+        private NormalVersion normalVersion;
+
         /**
          * The pre-release version string.
          */
         private String preRelease;
 
+        /**
+         * The pre-release identifiers.
+         */
+        private String[] preReleaseIdentifiers;
+
         /**
          * The build metadata string.
          */
         private String build;
 
+        /**
+         * The build identifiers.
+         */
+        private String[] buildIdentifiers;
+
         /**
          * Constructs a {@code Builder} instance.
          */
@@ -113,6 +151,23 @@ public class Version implements Comparable<Version> {
          */
         public Builder setNormalVersion(String normal) {
             this.normal = normal;
+            this.normalVersion = null;
+            return this;
+        }
+
+        /**
+         * Sets the normal version from its numbers.
+         *
+         * @param major    the major version number
+         * @param minor    the minor version number
+         * @param build    the build version number
+         * @param subBuild the subBuild version number
+         * @return this builder instance
+         * @throws IllegalArgumentException if a negative integer is passed
+         */
+        public Builder setNormalVersion(int major, int minor, int build, int subBuild) {
+            this.normalVersion = new NormalVersion(major, minor, build, subBuild);
+            this.normal = null;
             return this;
         }
 
@@ -124,6 +179,19 @@ public class Version implements Comparable<Version> {
          */
         public Builder setPreReleaseVersion(String preRelease) {
             this.preRelease = preRelease;
+            this.preReleaseIdentifiers = null;
+            return this;
+        }
+
+        /**
+         * Sets the pre-release version from its dot-separated identifiers.
+         *
+         * @param identifiers the pre-release identifiers
+         * @return this builder instance
+         */
+        public Builder setPreReleaseIdentifiers(String... identifiers) {
+            this.preReleaseIdentifiers = identifiers.clone();
+            this.preRelease = null;
             return this;
         }
 
@@ -135,29 +203,51 @@ public class Version implements Comparable<Version> {
          */
         public Builder setBuildMetadata(String build) {
             this.build = build;
+            this.buildIdentifiers = null;
+            return this;
+        }
+
+        /**
+         * Sets the build metadata from its dot-separated identifiers.
+         *
+         * @param identifiers the build identifiers
+         * @return this builder instance
+         */
+        public Builder setBuildIdentifiers(String... identifiers) {
+            this.buildIdentifiers = identifiers.clone();
+            this.build = null;
             return this;
         }
 
         /**
          * Builds a {@code Version} object.
          *
+         * Each component is validated on its own and the version is assembled
+         * from the components, without parsing the joined version string.
+         *
          * @return a newly built {@code Version} instance
+         * @throws IllegalArgumentException     if the normal version is not set
          * @throws ParseException               when invalid version string is provided
          * @throws UnexpectedCharacterException is a special case of
          *                                      {@code ParseException}
          */
         public Version build() {
-            StringBuilder sb = new StringBuilder();
-            if (isFilled(normal)) {
-                sb.append(normal);
-            }
-            if (isFilled(preRelease)) {
-                sb.append(PRE_RELEASE_PREFIX).append(preRelease);
+            NormalVersion normalPart = (normalVersion != null)
+                ? normalVersion
+                : VersionParser.parseWholeVersionCore(normal);
+            MetadataVersion preReleasePart = MetadataVersion.NULL;
+            if (preReleaseIdentifiers != null) {
+                preReleasePart = VersionParser.preReleaseOf(preReleaseIdentifiers);
+            } else if (isFilled(preRelease)) {
+                preReleasePart = VersionParser.parseWholePreRelease(preRelease);
             }
-            if (isFilled(build)) {
-                sb.append(BUILD_PREFIX).append(build);
+            MetadataVersion buildPart = MetadataVersion.NULL;
+            if (buildIdentifiers != null) {
+                buildPart = VersionParser.buildOf(buildIdentifiers);
+            } else if (isFilled(build)) {
+                buildPart = VersionParser.parseWholeBuild(build);
             }
-            return VersionParser.parseValidSemVer(sb.toString());
+            return new Version(normalPart, preReleasePart, buildPart);
         }
 
         /**
@@ -176,6 +266,12 @@ public class Version implements Comparable<Version> {
      */
     public static final Comparator<Version> BUILD_AWARE_ORDER = new BuildAwareOrder();
 
+    /**
+     * The value returned by {@link #getPackedNormalVersion()} if one of
+     * the version numbers is too large to be packed.
+     */
+    public static final long UNPACKED = NormalVersion.UNPACKED;
+
     /**
      * A build-aware comparator.
      */
@@ -240,7 +336,21 @@ public class Version implements Comparable<Version> {
      * @param build      the build metadata
      */
     Version(NormalVersion normal, MetadataVersion preRelease, MetadataVersion build) {
-        this.normal = normal;
+        this(normal.getPacked(), normal, preRelease, build);
+    }
+
+    /**
+     * Constructs a {@code Version} instance with the packed normal version,
+     * the pre-release version and the build metadata.
+     *
+     * @param packed     the packed normal version
+     * @param normal     the normal version, only kept if it cannot be packed
+     * @param preRelease the pre-release version
+     * @param build      the build metadata
+     */
+    private Version(long packed, NormalVersion normal, MetadataVersion preRelease, MetadataVersion build) {
+        this.packed = packed;
+        this.large = (packed == UNPACKED) ? normal : null;
         this.preRelease = preRelease;
         this.build = build;
     }
@@ -249,6 +359,9 @@ public class Version implements Comparable<Version> {
      * Creates a new instance of {@code Version} as a result of parsing the
      * specified version string.
      *
+     * If a {@code VersionCache} is installed, a shared instance parsed from an
+     * equal string may be returned instead.
+     *
      * @param version the version string to parse
      * @return a new instance of the {@code Version} class
      * @throws IllegalArgumentException     if the input string is {@code NULL} or
@@ -258,9 +371,62 @@ public class Version implements Comparable<Version> {
      *                                      {@code ParseException}
      */
     public static Version valueOf(String version) {
+        VersionCache current = cache;
+        if (current != null) {
+            return current.valueOf(version);
+        }
         return VersionParser.parseValidSemVer(version);
     }
 
+    /**
+     * Parses the specified version string without throwing an exception
+     * if it is invalid.
+     *
+     * This is considerably cheaper than catching the exceptions of
+     * {@link #valueOf(String)} when many strings are expected to be invalid.
+     * The details of the failure are only built on request.
+     *
+     * @param version the version string to parse, may be {@code NULL}
+     * @return the result holding either the version or the failure
+     */
+    public static ParseResult tryParse(CharSequence version) {
+        return VersionParser.tryParseValidSemVer(version);
+    }
+
+    /**
+     * Checks if the specified string is a valid version.
+     *
+     * @param version the version string to check, may be {@code NULL}
+     * @return {@code true} if the string is a valid version
+     *         or {@code false} otherwise
+     * @see #tryParse(CharSequence)
+     */
+    public static boolean isValid(CharSequence version) {
+        return tryParse(version).isValid();
+    }
+
+    /**
+     * Installs the cache used by the {@code Version.valueOf} method.
+     *
+     * The cache is disabled by default. While a cache is installed, repeated
+     * calls with equal version strings return a shared instance.
+     *
+     * @param versionCache the cache to install or {@code null} to disable caching
+     * @see VersionCache
+     */
+    public static void setCache(VersionCache versionCache) {
+        cache = versionCache;
+    }
+
+    /**
+     * Returns the cache used by the {@code Version.valueOf} method.
+     *
+     * @return the installed cache or {@code null} if caching is disabled
+     */
+    public static VersionCache getCache() {
+        return cache;
+    }
+
     /**
      * Creates a new instance of {@code Version} for the specified version numbers.
      *
@@ -318,7 +484,8 @@ public class Version implements Comparable<Version> {
     /**
      * Checks if this version satisfies the specified SemVer Expression string.
      *
-     * This method is a part of the SemVer Expressions API.
+     * This method is a part of the SemVer Expressions API. The parsed
+     * expressions are memoized, so each expression string is parsed only once.
      *
      * @param expr the SemVer Expression string
      * @return {@code true} if this version satisfies the specified SemVer
@@ -329,8 +496,7 @@ public class Version implements Comparable<Version> {
      * @since 0.7.0
      */
     public boolean satisfies(String expr) {
-        Parser<Expression> parser = ExpressionParser.newInstance();
-        return satisfies(parser.parse(expr));
+        return satisfies(EXPRESSION_PARSER.parse(expr));
     }
 
     /**
@@ -353,7 +519,7 @@ public class Version implements Comparable<Version> {
      * @return a new instance of the {@code Version} class
      */
     public Version incrementMajorVersion() {
-        return new Version(normal.incrementMajor());
+        return new Version(normal().incrementMajor());
     }
 
     /**
@@ -368,7 +534,7 @@ public class Version implements Comparable<Version> {
      *                                      {@code ParseException}
      */
     public Version incrementMajorVersion(String preRelease) {
-        return new Version(normal.incrementMajor(), VersionParser.parsePreRelease(preRelease));
+        return new Version(normal().incrementMajor(), VersionParser.parsePreRelease(preRelease));
     }
 
     /**
@@ -377,7 +543,7 @@ public class Version implements Comparable<Version> {
      * @return a new instance of the {@code Version} class
      */
     public Version incrementMinorVersion() {
-        return new Version(normal.incrementMinor());
+        return new Version(normal().incrementMinor());
     }
 
     /**
@@ -392,7 +558,7 @@ public class Version implements Comparable<Version> {
      *                                      {@code ParseException}
      */
     public Version incrementMinorVersion(String preRelease) {
-        return new Version(normal.incrementMinor(), VersionParser.parsePreRelease(preRelease));
+        return new Version(normal().incrementMinor(), VersionParser.parsePreRelease(preRelease));
     }
 
     /**
@@ -401,7 +567,7 @@ public class Version implements Comparable<Version> {
      * @return a new instance of the {@code Version} class
      */
     public Version incrementBuildVersion() {
-        return new Version(normal.incrementBuild());
+        return new Version(normal().incrementBuild());
     }
 
     /**
@@ -416,7 +582,7 @@ public class Version implements Comparable<Version> {
      *                                      {@code ParseException}
      */
     public Version incrementBuildVersion(String preRelease) {
-        return new Version(normal.incrementBuild(), VersionParser.parsePreRelease(preRelease));
+        return new Version(normal().incrementBuild(), VersionParser.parsePreRelease(preRelease));
     }
 
     /**
@@ -425,7 +591,7 @@ public class Version implements Comparable<Version> {
      * @return a new instance of the {@code Version} class
      */
     public Version incrementSubBuildVersion() {
-        return new Version(normal.incrementSubBuild());
+        return new Version(normal().incrementSubBuild());
     }
 
     /**
@@ -440,7 +606,7 @@ public class Version implements Comparable<Version> {
      *                                      {@code ParseException}
      */
     public Version incrementSubBuildVersion(String preRelease) {
-        return new Version(normal.incrementSubBuild(), VersionParser.parsePreRelease(preRelease));
+        return new Version(normal().incrementSubBuild(), VersionParser.parsePreRelease(preRelease));
     }
 
     /**
@@ -449,7 +615,7 @@ public class Version implements Comparable<Version> {
      * @return a new instance of the {@code Version} class
      */
     public Version incrementPreReleaseVersion() {
-        return new Version(normal, preRelease.increment());
+        return new Version(packed, large, preRelease.increment(), MetadataVersion.NULL);
     }
 
     /**
@@ -458,7 +624,7 @@ public class Version implements Comparable<Version> {
      * @return a new instance of the {@code Version} class
      */
     public Version incrementBuildMetadata() {
-        return new Version(normal, preRelease, build.increment());
+        return new Version(packed, large, preRelease, build.increment());
     }
 
     /**
@@ -473,7 +639,7 @@ public class Version implements Comparable<Version> {
      *                                      {@code ParseException}
      */
     public Version setPreReleaseVersion(String preRelease) {
-        return new Version(normal, VersionParser.parsePreRelease(preRelease));
+        return new Version(packed, large, VersionParser.parsePreRelease(preRelease), MetadataVersion.NULL);
     }
 
     /**
@@ -488,7 +654,7 @@ public class Version implements Comparable<Version> {
      *                                      {@code ParseException}
      */
     public Version setBuildMetadata(String build) {
-        return new Version(normal, preRelease, VersionParser.parseBuild(build));
+        return new Version(packed, large, preRelease, VersionParser.parseBuild(build));
     }
 
     /**
@@ -497,7 +663,7 @@ public class Version implements Comparable<Version> {
      * @return the major version number
      */
     public int getMajorVersion() {
-        return normal.getMajor();
+        return (large != null) ? large.getMajor() : NormalVersion.unpack(packed, 0);
     }
 
     /**
@@ -506,7 +672,7 @@ public class Version implements Comparable<Version> {
      * @return the minor version number
      */
     public int getMinorVersion() {
-        return normal.getMinor();
+        return (large != null) ? large.getMinor() : NormalVersion.unpack(packed, 1);
     }
 
     /**
@@ -515,7 +681,23 @@ public class Version implements Comparable<Version> {
      * @return the patch version number
      */
     public int getPatchVersion() {
-        return normal.getBuild();
+        return (large != null) ? large.getBuild() : NormalVersion.unpack(packed, 2);
+    }
+
+    /**
+     * Returns the normal version numbers packed into a single {@code long}.
+     *
+     * Each number takes 16 bits, the major version number first, so the
+     * packed values compare like the normal versions when compared as
+     * unsigned numbers. Versions with the same packed value may still differ
+     * in their pre-release versions.
+     *
+     * @return the packed normal version or {@code UNPACKED} if one of the
+     *         version numbers is larger than 65535
+     * @see Long#compareUnsigned(long, long)
+     */
+    public long getPackedNormalVersion() {
+        return packed;
     }
 
     /**
@@ -524,7 +706,7 @@ public class Version implements Comparable<Version> {
      * @return the string representation of the normal version
      */
     public String getNormalVersion() {
-        return normal.toString();
+        return normal().toString();
     }
 
     /**
@@ -596,7 +778,8 @@ public class Version implements Comparable<Version> {
     /**
      * Checks if this version equals the other version.
      *
-     * The comparison is done by the {@code Version.compareTo} method.
+     * The versions are equal if their normal versions and pre-release versions
+     * are equal, which is consistent with the {@code Version.compareTo} method.
      *
      * @param other the other version to compare to
      * @return {@code true} if this version equals the other version or
@@ -611,7 +794,11 @@ public class Version implements Comparable<Version> {
         if (!(other instanceof Version)) {
             return false;
         }
-        return compareTo((Version) other) == 0;
+        Version that = (Version) other;
+        if (packed != that.packed || (packed == UNPACKED && !large.equals(that.large))) {
+            return false;
+        }
+        return preRelease.equals(that.preRelease);
     }
 
     /**
@@ -620,7 +807,7 @@ public class Version implements Comparable<Version> {
     @Override
     public int hashCode() {
         int hash = 5;
-        hash = 97 * hash + normal.hashCode();
+        hash = 97 * hash + ((large != null) ? large.hashCode() : Long.hashCode(packed));
         hash = 97 * hash + preRelease.hashCode();
         return hash;
     }
@@ -656,13 +843,38 @@ public class Version implements Comparable<Version> {
      */
     @Override
     public int compareTo(Version other) {
-        int result = normal.compareTo(other.normal);
+        int result;
+        if (large == null && other.large == null) {
+            result = Long.compareUnsigned(packed, other.packed);
+        } else {
+            result = normal().compareTo(other.normal());
+        }
         if (result == 0) {
             result = preRelease.compareTo(other.preRelease);
         }
         return result;
     }
 
+    /**
+     * Checks if this version has neither a pre-release version
+     * nor build metadata.
+     *
+     * @return {@code true} if this version is a plain normal version
+     *         or {@code false} otherwise
+     */
+    boolean isNormal() {
+        return preRelease == MetadataVersion.NULL && build == MetadataVersion.NULL;
+    }
+
+    /**
+     * Returns the normal version, unpacking it if necessary.
+     *
+     * @return the normal version
+     */
+    private NormalVersion normal() {
+        return (large != null) ? large : NormalVersion.unpack(packed);
+    }
+
     /**
      * Compare this version to the other version taking into account the build
      * metadata.
@@ -677,4 +889,83 @@ public class Version implements Comparable<Version> {
     public int compareWithBuildsTo(Version other) {
         return BUILD_AWARE_ORDER.compare(this, other);
     }
+
+    /**
+     * Returns a binary sort key of this version.
+     *
+     * The keys of two versions compare in unsigned lexicographic byte order
+     * like the versions themselves compare with {@code compareTo}, so they can
+     * be stored and compared without parsing the versions again. Versions
+     * which are equal have equal keys. The build metadata is not part of the
+     * key.
+     *
+     * @return a new array holding the sort key
+     * @see #compareSortKeys(byte[], byte[])
+     * @see #toBuildAwareSortKey()
+     */
+    public byte[] toSortKey() {
+        SortKey key = new SortKey();
+        appendSortKey(key);
+        return key.toByteArray();
+    }
+
+    /**
+     * Returns a binary sort key of this version including the build metadata.
+     *
+     * The keys of two versions compare in unsigned lexicographic byte order
+     * like the versions compare with the {@code BUILD_AWARE_ORDER} comparator.
+     * The key of a version without build metadata sorts before the keys of
+     * the same version with build metadata.
+     *
+     * @return a new array holding the sort key
+     * @see #compareSortKeys(byte[], byte[])
+     * @see #BUILD_AWARE_ORDER
+     */
+    public byte[] toBuildAwareSortKey() {
+        SortKey key = new SortKey();
+        appendSortKey(key);
+        if (build == MetadataVersion.NULL) {
+            key.put(SortKey.END);
+        } else {
+            build.appendSortKey(key);
+        }
+        return key.toByteArray();
+    }
+
+    /**
+     * Compares two sort keys in unsigned lexicographic byte order.
+     *
+     * @param key1 the first sort key
+     * @param key2 the second sort key
+     * @return integer result of comparison compatible with that of the
+     *         {@code Comparable.compareTo} method
+     * @see #toSortKey()
+     * @see #toBuildAwareSortKey()
+     */
+    public static int compareSortKeys(byte[] key1, byte[] key2) {
+        return SortKey.compare(key1, key2);
+    }
+
+    /**
+     * Appends the normal version and the pre-release version to a sort key.
+     *
+     * @param key the sort key to append to
+     */
+    private void appendSortKey(SortKey key) {
+        if (large != null) {
+            key.putUnsigned(large.getMajor());
+            key.putUnsigned(large.getMinor());
+            key.putUnsigned(large.getBuild());
+            key.putUnsigned(large.getSubBuild());
+        } else {
+            for (int i = 0; i < 4; i++) {
+                key.putUnsigned(NormalVersion.unpack(packed, i));
+            }
+        }
+        if (preRelease == MetadataVersion.NULL) {
+            key.put(SortKey.RELEASE);
+        } else {
+            preRelease.appendSortKey(key);
+        }
+    }
 }
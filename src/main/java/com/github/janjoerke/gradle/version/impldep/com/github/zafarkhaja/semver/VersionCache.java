@@ -0,0 +1,363 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache canonicalizing the versions parsed from equal strings.
+ *
+ * The cache is opt-in and installed with {@code Version.setCache}. Once
+ * installed, {@code Version.valueOf} returns the same immutable instance for
+ * repeated inputs as long as it is reachable. Entries are held by weak
+ * references and evicted in insertion order once more than the maximum
+ * number of live entries has been added, entries whose versions have been
+ * garbage collected no longer count. The cache is safe for concurrent use.
+ *
+ * @see Version#setCache(VersionCache)
+ */
+public class VersionCache {
+
+    /**
+     * A weak reference to a cached version which remembers its key.
+     */
+    private static class Entry extends WeakReference<Version> {
+
+        /**
+         * The state of an entry counted towards the size bound.
+         */
+        static final int LIVE = 0;
+
+        /**
+         * The state of a collected entry still in the insertion order queue.
+         */
+        static final int RETIRED = 1;
+
+        /**
+         * The state of an entry which has left the insertion order queue.
+         */
+        static final int DEQUEUED = 2;
+
+        /**
+         * The input string the version was parsed from.
+         */
+        final String key;
+
+        /**
+         * The state of the entry, {@code LIVE}, {@code RETIRED} or
+         * {@code DEQUEUED}.
+         */
+        private volatile int state;
+
+        /**
+         * The updater of the {@code state} field.
+         */
+        private static final AtomicIntegerFieldUpdater<Entry> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        /**
+         * Constructs an {@code Entry} instance.
+         *
+         * @param key     the input string the version was parsed from
+         * @param version the parsed version
+         * @param queue   the queue to register the reference with
+         */
+        Entry(String key, Version version, ReferenceQueue<Version> queue) {
+            super(version, queue);
+            this.key = key;
+        }
+
+        /**
+         * Marks the entry as no longer counted towards the size bound.
+         *
+         * @return {@code true} if the entry has been retired by this call,
+         *         {@code false} if it has been retired before
+         */
+        boolean retire() {
+            return STATE.compareAndSet(this, LIVE, RETIRED);
+        }
+
+        /**
+         * Marks a live entry as removed from the insertion order queue.
+         *
+         * @return {@code true} if the entry has been live and is dequeued
+         *         by this call, {@code false} otherwise
+         */
+        boolean evict() {
+            return STATE.compareAndSet(this, LIVE, DEQUEUED);
+        }
+
+        /**
+         * Marks a retired entry as removed from the insertion order queue.
+         *
+         * @return {@code true} if the entry has been retired and is
+         *         dequeued by this call, {@code false} otherwise
+         */
+        boolean dequeue() {
+            return STATE.compareAndSet(this, RETIRED, DEQUEUED);
+        }
+    }
+
+    /**
+     * The maximum number of entries.
+     */
+    private final int maximumSize;
+
+    /**
+     * The cached entries by input string.
+     */
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * The entries in insertion order, used for eviction.
+     */
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<Entry>();
+
+    /**
+     * The number of live entries in the insertion order queue.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * The number of retired entries still in the insertion order queue.
+     */
+    private final AtomicInteger retired = new AtomicInteger();
+
+    /**
+     * The queue of entries whose versions have been garbage collected.
+     */
+    private final ReferenceQueue<Version> collected = new ReferenceQueue<Version>();
+
+    /**
+     * The number of lookups that returned a cached version.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * The number of lookups that had to parse the input.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * The number of entries evicted because of the size bound.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a {@code VersionCache} instance.
+     *
+     * @param maximumSize the maximum number of entries
+     * @throws IllegalArgumentException if the maximum size is not positive
+     */
+    public VersionCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size MUST be a positive integer.");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns the cached version for the specified version string, parsing
+     * and caching it if necessary.
+     *
+     * @param version the version string to parse
+     * @return the canonical instance of the version
+     * @throws IllegalArgumentException     if the input string is {@code NULL} or
+     *                                      empty
+     * @throws ParseException               when invalid version string is provided
+     * @throws UnexpectedCharacterException is a special case of
+     *                                      {@code ParseException}
+     */
+    public Version valueOf(String version) {
+        if (version == null) {
+            return VersionParser.parseValidSemVer(version);
+        }
+        expungeCollectedEntries();
+        Entry entry = entries.get(version);
+        if (entry != null) {
+            Version cached = entry.get();
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        Version parsed = VersionParser.parseValidSemVer(version);
+        Entry fresh = new Entry(version, parsed, collected);
+        while (true) {
+            Entry existing = entries.putIfAbsent(version, fresh);
+            if (existing == null) {
+                break;
+            }
+            Version cached = existing.get();
+            if (cached != null) {
+                return cached;
+            }
+            if (entries.replace(version, existing, fresh)) {
+                break;
+            }
+        }
+        insertionOrder.add(fresh);
+        queued.incrementAndGet();
+        evictOverflow();
+        return parsed;
+    }
+
+    /**
+     * Returns the number of lookups that returned a cached version.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that had to parse the input.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries evicted because of the size bound.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return the number of cached entries
+     */
+    public int size() {
+        expungeCollectedEntries();
+        return entries.size();
+    }
+
+    /**
+     * Removes all entries, the statistics are kept.
+     */
+    public void clear() {
+        Entry entry;
+        while ((entry = insertionOrder.poll()) != null) {
+            if (entry.evict()) {
+                queued.decrementAndGet();
+            } else if (entry.dequeue()) {
+                retired.decrementAndGet();
+            }
+            entries.remove(entry.key, entry);
+        }
+        expungeCollectedEntries();
+    }
+
+    /**
+     * Returns the string representation of this cache's statistics.
+     *
+     * @return the string representation of this cache
+     */
+    @Override
+    public String toString() {
+        return String.format(
+            "VersionCache[size=%d, maximumSize=%d, hits=%d, misses=%d, evictions=%d]",
+            size(),
+            maximumSize,
+            getHitCount(),
+            getMissCount(),
+            getEvictionCount()
+        );
+    }
+
+    /**
+     * Evicts the oldest entries while more than the maximum number of
+     * live entries are queued.
+     */
+    private void evictOverflow() {
+        while (queued.get() > maximumSize) {
+            Entry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            if (!oldest.evict()) {
+                if (oldest.dequeue()) {
+                    retired.decrementAndGet();
+                }
+                continue;
+            }
+            queued.decrementAndGet();
+            if (entries.remove(oldest.key, oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes the entries whose versions have been garbage collected.
+     *
+     * The collected entries no longer count towards the size bound, their
+     * slots in the insertion order queue are purged once they outnumber
+     * the maximum number of entries.
+     */
+    private void expungeCollectedEntries() {
+        Entry entry;
+        while ((entry = (Entry) collected.poll()) != null) {
+            entries.remove(entry.key, entry);
+            if (entry.retire()) {
+                queued.decrementAndGet();
+                retired.incrementAndGet();
+            }
+        }
+        if (retired.get() > maximumSize) {
+            purgeRetiredEntries();
+        }
+    }
+
+    /**
+     * Removes the retired entries from the insertion order queue.
+     */
+    private void purgeRetiredEntries() {
+        Iterator<Entry> iterator = insertionOrder.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.dequeue()) {
+                iterator.remove();
+                retired.decrementAndGet();
+            }
+        }
+    }
+}
@@ -24,23 +24,15 @@
  *******************************************************************************/
 package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
 
-import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.VersionParser.CharType.DIGIT;
-import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.VersionParser.CharType.DOT;
-import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.VersionParser.CharType.EOI;
-import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.VersionParser.CharType.HYPHEN;
-import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.VersionParser.CharType.LETTER;
-import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.VersionParser.CharType.PLUS;
-
-import java.util.ArrayList;
-import java.util.EnumSet;
-import java.util.List;
-
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.util.Stream;
-import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.util.UnexpectedElementException;
 
 /**
  * A parser for the SemVer Version.
  *
+ * The parser walks the input {@code CharSequence} with a single cursor and
+ * classifies characters through a precomputed ASCII table, so that a
+ * successful parse allocates nothing but the resulting version objects.
+ *
  * @author Zafar Khaja <zafarkhaja@gmail.com>
  * @since 0.7.0
  */
@@ -51,111 +43,227 @@ class VersionParser implements Parser<Version> {
      */
     static enum CharType implements Stream.ElementType<Character> {
 
-    DIGIT {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public boolean isMatchedBy(Character chr) {
-            if (chr == null) {
-                return false;
-            }
-            return chr >= '0' && chr <= '9';
-        }
-    },
-    LETTER {
+        DIGIT,
+        LETTER,
+        DOT,
+        HYPHEN,
+        PLUS,
+        EOI,
+        ILLEGAL;
+
         /**
-         * {@inheritDoc}
+         * The bit representing this type in the character class table.
          */
-        @Override
-        public boolean isMatchedBy(Character chr) {
-            if (chr == null) {
-                return false;
-            }
-            return (chr >= 'a' && chr <= 'z') || (chr >= 'A' && chr <= 'Z');
-        }
-    },
-    DOT {
+        final int mask = (1 << ordinal()) & CLASS_MASK;
+
         /**
          * {@inheritDoc}
          */
         @Override
         public boolean isMatchedBy(Character chr) {
             if (chr == null) {
-                return false;
+                return this == EOI;
             }
-            return chr == '.';
-        }
-    },
-    HYPHEN {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public boolean isMatchedBy(Character chr) {
-            if (chr == null) {
-                return false;
+            int charClass = classOf(chr);
+            if (this == ILLEGAL) {
+                return charClass == 0;
             }
-            return chr == '-';
+            return (charClass & mask) != 0;
         }
-    },
-    PLUS {
+
         /**
-         * {@inheritDoc}
+         * Gets the type for a given character.
+         *
+         * @param chr the character to get the type for
+         * @return the type of the specified character
          */
-        @Override
-        public boolean isMatchedBy(Character chr) {
+        static CharType forCharacter(Character chr) {
             if (chr == null) {
-                return false;
+                return EOI;
             }
-            return chr == '+';
-        }
-    },
-    EOI {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public boolean isMatchedBy(Character chr) {
-            return chr == null;
-        }
-    },
-    ILLEGAL {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public boolean isMatchedBy(Character chr) {
-            EnumSet<CharType> itself = EnumSet.of(ILLEGAL);
-            for (CharType type : EnumSet.complementOf(itself)) {
-                if (type.isMatchedBy(chr)) {
-                    return false;
+            int charClass = classOf(chr);
+            for (CharType type : values()) {
+                if ((charClass & type.mask) != 0) {
+                    return type;
                 }
             }
-            return true;
+            return ILLEGAL;
         }
-    };
 
         /**
-         * Gets the type for a given character.
+         * Gets the types contained in the specified class mask.
          *
-         * @param chr the character to get the type for
-         * @return the type of the specified character
+         * @param mask the class mask
+         * @return the types in their declaration order
          */
-        static CharType forCharacter(Character chr) {
+        static CharType[] forMask(int mask) {
+            CharType[] types = new CharType[Integer.bitCount(mask)];
+            int i = 0;
             for (CharType type : values()) {
-                if (type.isMatchedBy(chr)) {
-                    return type;
+                if ((mask & type.mask) != 0) {
+                    types[i++] = type;
                 }
             }
-            return null;
+            return types;
         }
     }
 
     /**
-     * The stream of characters.
+     * The class bits of the {@code DIGIT} character type.
+     */
+    private static final int DIGIT = 1;
+
+    /**
+     * The class bits of the {@code LETTER} character type.
+     */
+    private static final int LETTER = 1 << 1;
+
+    /**
+     * The class bits of the {@code DOT} character type.
+     */
+    private static final int DOT = 1 << 2;
+
+    /**
+     * The class bits of the {@code HYPHEN} character type.
+     */
+    private static final int HYPHEN = 1 << 3;
+
+    /**
+     * The class bits of the {@code PLUS} character type.
+     */
+    private static final int PLUS = 1 << 4;
+
+    /**
+     * The class bits of the {@code EOI} character type.
+     */
+    private static final int EOI = 1 << 5;
+
+    /**
+     * All the class bits, the {@code ILLEGAL} type has none of them.
+     */
+    private static final int CLASS_MASK = DIGIT | LETTER | DOT | HYPHEN | PLUS | EOI;
+
+    /**
+     * The class bits of the characters allowed in identifiers.
+     */
+    private static final int IDENTIFIER = DIGIT | LETTER | HYPHEN;
+
+    /**
+     * The marker returned by the lookahead at the end of input.
+     */
+    private static final int END_OF_INPUT = -1;
+
+    /**
+     * The failure kind of an input that is {@code NULL} or empty.
+     */
+    private static final int EMPTY_INPUT = 1;
+
+    /**
+     * The failure kind of an unexpected character.
+     */
+    private static final int UNEXPECTED_CHARACTER = 2;
+
+    /**
+     * The failure kind of a numeric identifier with leading zeroes.
+     */
+    private static final int LEADING_ZEROES = 3;
+
+    /**
+     * The failure kind of an empty identifier.
+     */
+    private static final int EMPTY_IDENTIFIER = 4;
+
+    /**
+     * The failure kind of a version number that does not fit into an integer.
+     */
+    private static final int NUMBER_TOO_LARGE = 5;
+
+    /**
+     * Thrown to abort a lenient parse.
+     *
+     * It carries neither a message nor a stack trace, so a single instance is
+     * shared. The details of the failure are kept by the parser instance.
+     */
+    private static final class Failure extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructs the shared {@code Failure} instance.
+         */
+        Failure() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * The shared instance thrown to abort a lenient parse.
+     */
+    private static final Failure FAILURE = new Failure();
+
+    /**
+     * The character class table for the ASCII range.
+     */
+    private static final byte[] ASCII_CLASSES = new byte[128];
+
+    static {
+        for (char chr = '0'; chr <= '9'; chr++) {
+            ASCII_CLASSES[chr] = DIGIT;
+        }
+        for (char chr = 'a'; chr <= 'z'; chr++) {
+            ASCII_CLASSES[chr] = LETTER;
+            ASCII_CLASSES[chr - 'a' + 'A'] = LETTER;
+        }
+        ASCII_CLASSES['.'] = DOT;
+        ASCII_CLASSES['-'] = HYPHEN;
+        ASCII_CLASSES['+'] = PLUS;
+    }
+
+    /**
+     * The input to parse.
+     */
+    private final CharSequence input;
+
+    /**
+     * The length of the input.
+     */
+    private final int length;
+
+    /**
+     * The current offset which is incremented when a character is consumed.
+     */
+    private int offset = 0;
+
+    /**
+     * Whether failures abort the parse with the shared {@code FAILURE}
+     * instead of a descriptive exception.
+     */
+    private final boolean lenient;
+
+    /**
+     * The kind of the failure or {@code 0} if the parse has not failed.
+     */
+    private int failureKind;
+
+    /**
+     * The offset at which the parse failed.
+     */
+    private int failureOffset;
+
+    /**
+     * The character the parse failed at or {@code -1} at the end of input.
+     */
+    private int failureCharacter;
+
+    /**
+     * The class bits of the expected types of the failure character.
+     */
+    private int failureExpected;
+
+    /**
+     * The offset of the number that did not fit into an integer.
      */
-    private final Stream<Character> chars;
+    private int failureStart;
 
     /**
      * Constructs a {@code VersionParser} instance with the input string to parse.
@@ -163,15 +271,27 @@ class VersionParser implements Parser<Version> {
      * @param input the input string to parse
      * @throws IllegalArgumentException if the input string is {@code NULL} or empty
      */
-    VersionParser(String input) {
-        if (input == null || input.isEmpty()) {
-            throw new IllegalArgumentException("Input string is NULL or empty");
+    VersionParser(CharSequence input) {
+        this(input, false);
+        if (failureKind == EMPTY_INPUT) {
+            throw failure();
         }
-        Character[] elements = new Character[input.length()];
-        for (int i = 0; i < input.length(); i++) {
-            elements[i] = input.charAt(i);
+    }
+
+    /**
+     * Constructs a {@code VersionParser} instance which either throws
+     * descriptive exceptions or, if lenient, just records the failures.
+     *
+     * @param input   the input string to parse
+     * @param lenient whether to record the failures instead of describing them
+     */
+    private VersionParser(CharSequence input, boolean lenient) {
+        this.input = (input == null) ? "" : input;
+        this.length = this.input.length();
+        this.lenient = lenient;
+        if (length == 0) {
+            failureKind = EMPTY_INPUT;
         }
-        chars = new Stream<Character>(elements);
     }
 
     /**
@@ -199,11 +319,32 @@ class VersionParser implements Parser<Version> {
      * @throws UnexpectedCharacterException when encounters an unexpected character
      *                                      type
      */
-    static Version parseValidSemVer(String version) {
+    static Version parseValidSemVer(CharSequence version) {
         VersionParser parser = new VersionParser(version);
         return parser.parseValidSemVer();
     }
 
+    /**
+     * Parses the whole version without throwing an exception on invalid input.
+     *
+     * The failure is only recorded, the exception describing it is created
+     * on demand by the returned result.
+     *
+     * @param version the version string to parse, may be {@code NULL}
+     * @return the result holding either the version or the failure
+     */
+    static ParseResult tryParseValidSemVer(CharSequence version) {
+        VersionParser parser = new VersionParser(version, true);
+        if (parser.failureKind != 0) {
+            return new ParseResult(parser);
+        }
+        try {
+            return new ParseResult(parser.parseValidSemVer());
+        } catch (Failure e) {
+            return new ParseResult(parser);
+        }
+    }
+
     /**
      * Parses the version core.
      *
@@ -215,7 +356,7 @@ class VersionParser implements Parser<Version> {
      * @throws UnexpectedCharacterException when encounters an unexpected character
      *                                      type
      */
-    static NormalVersion parseVersionCore(String versionCore) {
+    static NormalVersion parseVersionCore(CharSequence versionCore) {
         VersionParser parser = new VersionParser(versionCore);
         return parser.parseVersionCore();
     }
@@ -231,7 +372,7 @@ class VersionParser implements Parser<Version> {
      * @throws UnexpectedCharacterException when encounters an unexpected character
      *                                      type
      */
-    static MetadataVersion parsePreRelease(String preRelease) {
+    static MetadataVersion parsePreRelease(CharSequence preRelease) {
         VersionParser parser = new VersionParser(preRelease);
         return parser.parsePreRelease();
     }
@@ -247,11 +388,140 @@ class VersionParser implements Parser<Version> {
      * @throws UnexpectedCharacterException when encounters an unexpected character
      *                                      type
      */
-    static MetadataVersion parseBuild(String build) {
+    static MetadataVersion parseBuild(CharSequence build) {
         VersionParser parser = new VersionParser(build);
         return parser.parseBuild();
     }
 
+    /**
+     * Parses a normal version which has to span the whole input.
+     *
+     * @param versionCore the version core string to parse
+     * @return a valid normal version object
+     * @throws IllegalArgumentException     if the input string is {@code NULL} or
+     *                                      empty
+     * @throws ParseException               when there is a grammar error
+     * @throws UnexpectedCharacterException when encounters an unexpected character
+     *                                      type or trailing characters
+     */
+    static NormalVersion parseWholeVersionCore(CharSequence versionCore) {
+        VersionParser parser = new VersionParser(versionCore);
+        NormalVersion normal = parser.parseVersionCore();
+        parser.consumeNextCharacter(EOI);
+        return normal;
+    }
+
+    /**
+     * Parses a pre-release version which has to span the whole input.
+     *
+     * @param preRelease the pre-release version string to parse
+     * @return a valid pre-release version object
+     * @throws IllegalArgumentException     if the input string is {@code NULL} or
+     *                                      empty
+     * @throws ParseException               when there is a grammar error
+     * @throws UnexpectedCharacterException when encounters an unexpected character
+     *                                      type or trailing characters
+     */
+    static MetadataVersion parseWholePreRelease(CharSequence preRelease) {
+        VersionParser parser = new VersionParser(preRelease);
+        MetadataVersion version = parser.parsePreRelease();
+        parser.consumeNextCharacter(EOI);
+        return version;
+    }
+
+    /**
+     * Parses a build metadata which has to span the whole input.
+     *
+     * @param build the build metadata string to parse
+     * @return a valid build metadata object
+     * @throws IllegalArgumentException     if the input string is {@code NULL} or
+     *                                      empty
+     * @throws ParseException               when there is a grammar error
+     * @throws UnexpectedCharacterException when encounters an unexpected character
+     *                                      type or trailing characters
+     */
+    static MetadataVersion parseWholeBuild(CharSequence build) {
+        VersionParser parser = new VersionParser(build);
+        MetadataVersion version = parser.parseBuild();
+        parser.consumeNextCharacter(EOI);
+        return version;
+    }
+
+    /**
+     * Creates a pre-release version from identifiers which are already split.
+     *
+     * Each identifier is validated in place, without joining them first.
+     *
+     * @param identifiers the pre-release identifiers
+     * @return a valid pre-release version object
+     * @throws ParseException               when an identifier is empty or a
+     *                                      numeric identifier has leading zeroes
+     * @throws UnexpectedCharacterException when an identifier contains an
+     *                                      unexpected character
+     */
+    static MetadataVersion preReleaseOf(String[] identifiers) {
+        for (String identifier : identifiers) {
+            VersionParser parser = identifierParser(identifier);
+            parser.preReleaseIdentifier();
+            parser.consumeNextCharacter(EOI);
+        }
+        if (identifiers.length == 0) {
+            return MetadataVersion.NULL;
+        }
+        return Identifiers.preRelease(internAll(identifiers));
+    }
+
+    /**
+     * Creates a build metadata from identifiers which are already split.
+     *
+     * Each identifier is validated in place, without joining them first.
+     *
+     * @param identifiers the build identifiers
+     * @return a valid build metadata object
+     * @throws ParseException               when an identifier is empty
+     * @throws UnexpectedCharacterException when an identifier contains an
+     *                                      unexpected character
+     */
+    static MetadataVersion buildOf(String[] identifiers) {
+        for (String identifier : identifiers) {
+            VersionParser parser = identifierParser(identifier);
+            parser.buildIdentifier();
+            parser.consumeNextCharacter(EOI);
+        }
+        if (identifiers.length == 0) {
+            return MetadataVersion.NULL;
+        }
+        return new MetadataVersion(internAll(identifiers));
+    }
+
+    /**
+     * Creates a parser for a single identifier.
+     *
+     * @param identifier the identifier to parse
+     * @return the parser for the identifier
+     * @throws ParseException if the identifier is {@code NULL} or empty
+     */
+    private static VersionParser identifierParser(String identifier) {
+        if (identifier == null || identifier.isEmpty()) {
+            throw new ParseException("Identifiers MUST NOT be empty");
+        }
+        return new VersionParser(identifier);
+    }
+
+    /**
+     * Copies validated identifiers, sharing the common ones.
+     *
+     * @param identifiers the validated identifiers
+     * @return a new array of identifiers
+     */
+    private static String[] internAll(String[] identifiers) {
+        String[] idents = new String[identifiers.length];
+        for (int i = 0; i < identifiers.length; i++) {
+            idents[i] = Identifiers.intern(identifiers[i], 0, identifiers[i].length());
+        }
+        return idents;
+    }
+
     /**
      * Parses the {@literal <valid semver>} non-terminal.
      *
@@ -271,14 +541,14 @@ class VersionParser implements Parser<Version> {
         MetadataVersion preRelease = MetadataVersion.NULL;
         MetadataVersion build = MetadataVersion.NULL;
 
-        Character next = consumeNextCharacter(HYPHEN, PLUS, EOI);
-        if (HYPHEN.isMatchedBy(next)) {
+        int next = consumeNextCharacter(HYPHEN | PLUS | EOI);
+        if (next == '-') {
             preRelease = parsePreRelease();
-            next = consumeNextCharacter(PLUS, EOI);
-            if (PLUS.isMatchedBy(next)) {
+            next = consumeNextCharacter(PLUS | EOI);
+            if (next == '+') {
                 build = parseBuild();
             }
-        } else if (PLUS.isMatchedBy(next)) {
+        } else if (next == '+') {
             build = parseBuild();
         }
         consumeNextCharacter(EOI);
@@ -290,20 +560,20 @@ class VersionParser implements Parser<Version> {
      *
      * <pre>
      * {@literal
-     * <version core> ::= <major> "." <minor> "." <patch>
+     * <version core> ::= <major> "." <minor> "." <build> "." <subBuild>
      * }
      * </pre>
      *
      * @return a valid normal version object
      */
     private NormalVersion parseVersionCore() {
-        int major = Integer.parseInt(numericIdentifier());
+        int major = versionNumber();
         consumeNextCharacter(DOT);
-        int minor = Integer.parseInt(numericIdentifier());
+        int minor = versionNumber();
         consumeNextCharacter(DOT);
-        int build = Integer.parseInt(numericIdentifier());
+        int build = versionNumber();
         consumeNextCharacter(DOT);
-        int subBuild = Integer.parseInt(numericIdentifier());
+        int subBuild = versionNumber();
         return new NormalVersion(major, minor, build, subBuild);
     }
 
@@ -322,17 +592,19 @@ class VersionParser implements Parser<Version> {
      * @return a valid pre-release version object
      */
     private MetadataVersion parsePreRelease() {
-        ensureValidLookahead(DIGIT, LETTER, HYPHEN);
-        List<String> idents = new ArrayList<String>();
+        ensureValidLookahead(IDENTIFIER);
+        int start = offset;
+        int count = 0;
         do {
-            idents.add(preReleaseIdentifier());
-            if (chars.positiveLookahead(DOT)) {
-                consumeNextCharacter(DOT);
+            preReleaseIdentifier();
+            count++;
+            if (lookahead(1) == '.') {
+                offset++;
                 continue;
             }
             break;
         } while (true);
-        return new MetadataVersion(idents.toArray(new String[idents.size()]));
+        return Identifiers.preRelease(identifiers(start, offset, count));
     }
 
     /**
@@ -344,16 +616,13 @@ class VersionParser implements Parser<Version> {
      *                            | <numeric identifier>
      * }
      * </pre>
-     *
-     * @return a single pre-release identifier
      */
-    private String preReleaseIdentifier() {
+    private void preReleaseIdentifier() {
         checkForEmptyIdentifier();
-        CharType boundary = nearestCharType(DOT, PLUS, EOI);
-        if (chars.positiveLookaheadBefore(boundary, LETTER, HYPHEN)) {
-            return alphanumericIdentifier();
+        if (hasNonDigitBefore(DOT | PLUS)) {
+            alphanumericIdentifier();
         } else {
-            return numericIdentifier();
+            numericIdentifier();
         }
     }
 
@@ -372,17 +641,19 @@ class VersionParser implements Parser<Version> {
      * @return a valid build metadata object
      */
     private MetadataVersion parseBuild() {
-        ensureValidLookahead(DIGIT, LETTER, HYPHEN);
-        List<String> idents = new ArrayList<String>();
+        ensureValidLookahead(IDENTIFIER);
+        int start = offset;
+        int count = 0;
         do {
-            idents.add(buildIdentifier());
-            if (chars.positiveLookahead(DOT)) {
-                consumeNextCharacter(DOT);
+            buildIdentifier();
+            count++;
+            if (lookahead(1) == '.') {
+                offset++;
                 continue;
             }
             break;
         } while (true);
-        return new MetadataVersion(idents.toArray(new String[idents.size()]));
+        return new MetadataVersion(identifiers(start, offset, count));
     }
 
     /**
@@ -394,19 +665,36 @@ class VersionParser implements Parser<Version> {
      *                      | <digits>
      * }
      * </pre>
-     *
-     * @return a single build identifier
      */
-    private String buildIdentifier() {
+    private void buildIdentifier() {
         checkForEmptyIdentifier();
-        CharType boundary = nearestCharType(DOT, EOI);
-        if (chars.positiveLookaheadBefore(boundary, LETTER, HYPHEN)) {
-            return alphanumericIdentifier();
+        if (hasNonDigitBefore(DOT)) {
+            alphanumericIdentifier();
         } else {
-            return digits();
+            digits();
         }
     }
 
+    /**
+     * Parses a {@literal <numeric identifier>} of the version core.
+     *
+     * @return the integer value of the numeric identifier
+     * @throws NumberFormatException if the value does not fit into an integer
+     */
+    private int versionNumber() {
+        int start = offset;
+        numericIdentifier();
+        long value = 0;
+        for (int i = start; i < offset; i++) {
+            value = value * 10 + (input.charAt(i) - '0');
+            if (value > Integer.MAX_VALUE) {
+                failureStart = start;
+                throw fail(NUMBER_TOO_LARGE, END_OF_INPUT, 0);
+            }
+        }
+        return (int) value;
+    }
+
     /**
      * Parses the {@literal <numeric identifier>} non-terminal.
      *
@@ -417,12 +705,10 @@ class VersionParser implements Parser<Version> {
      *                        | <positive digit> <digits>
      * }
      * </pre>
-     *
-     * @return a string representing the numeric identifier
      */
-    private String numericIdentifier() {
+    private void numericIdentifier() {
         checkForLeadingZeroes();
-        return digits();
+        digits();
     }
 
     /**
@@ -436,15 +722,12 @@ class VersionParser implements Parser<Version> {
      *             | <identifier characters> <non-digit> <identifier characters>
      * }
      * </pre>
-     *
-     * @return a string representing the alphanumeric identifier
      */
-    private String alphanumericIdentifier() {
-        StringBuilder sb = new StringBuilder();
-        do {
-            sb.append(consumeNextCharacter(DIGIT, LETTER, HYPHEN));
-        } while (chars.positiveLookahead(DIGIT, LETTER, HYPHEN));
-        return sb.toString();
+    private void alphanumericIdentifier() {
+        consumeNextCharacter(IDENTIFIER);
+        while (isOfClass(lookahead(1), IDENTIFIER)) {
+            offset++;
+        }
     }
 
     /**
@@ -456,32 +739,57 @@ class VersionParser implements Parser<Version> {
      *            | <digit> <digits>
      * }
      * </pre>
+     */
+    private void digits() {
+        consumeNextCharacter(DIGIT);
+        while (isOfClass(lookahead(1), DIGIT)) {
+            offset++;
+        }
+    }
+
+    /**
+     * Checks if the identifier at the current offset contains a letter or a
+     * hyphen before the nearest boundary character.
      *
-     * @return a string representing the digits
+     * @param boundary the class bits of the boundary characters
+     * @return {@code true} if the identifier is alphanumeric or {@code false}
+     *         otherwise
      */
-    private String digits() {
-        StringBuilder sb = new StringBuilder();
-        do {
-            sb.append(consumeNextCharacter(DIGIT));
-        } while (chars.positiveLookahead(DIGIT));
-        return sb.toString();
+    private boolean hasNonDigitBefore(int boundary) {
+        for (int i = offset; i < length; i++) {
+            int charClass = classOf(input.charAt(i));
+            if ((charClass & boundary) != 0) {
+                return false;
+            }
+            if ((charClass & (LETTER | HYPHEN)) != 0) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Finds the nearest character type.
+     * Splits the dot-separated identifiers of the specified range.
      *
-     * @param types the character types to choose from
-     * @return the nearest character type or {@code EOI}
+     * The common identifiers are shared instead of copied.
+     *
+     * @param start the start offset of the range, inclusive
+     * @param end   the end offset of the range, exclusive
+     * @param count the number of identifiers in the range
+     * @return an array of identifiers
      */
-    private CharType nearestCharType(CharType... types) {
-        for (Character chr : chars) {
-            for (CharType type : types) {
-                if (type.isMatchedBy(chr)) {
-                    return type;
-                }
+    private String[] identifiers(int start, int end, int count) {
+        String[] idents = new String[count];
+        int from = start;
+        int i = 0;
+        for (int pos = start; pos < end; pos++) {
+            if (input.charAt(pos) == '.') {
+                idents[i++] = Identifiers.intern(input, from, pos);
+                from = pos + 1;
             }
         }
-        return EOI;
+        idents[i] = Identifiers.intern(input, from, end);
+        return idents;
     }
 
     /**
@@ -490,10 +798,8 @@ class VersionParser implements Parser<Version> {
      * @throws ParseException if a numeric identifier has leading zero(es)
      */
     private void checkForLeadingZeroes() {
-        Character la1 = chars.lookahead(1);
-        Character la2 = chars.lookahead(2);
-        if (la1 != null && la1 == '0' && DIGIT.isMatchedBy(la2)) {
-            throw new ParseException("Numeric identifier MUST NOT contain leading zeroes");
+        if (lookahead(1) == '0' && isOfClass(lookahead(2), DIGIT)) {
+            throw fail(LEADING_ZEROES, END_OF_INPUT, 0);
         }
     }
 
@@ -504,38 +810,135 @@ class VersionParser implements Parser<Version> {
      *                        empty identifier(s)
      */
     private void checkForEmptyIdentifier() {
-        Character la = chars.lookahead(1);
-        if (DOT.isMatchedBy(la) || PLUS.isMatchedBy(la) || EOI.isMatchedBy(la)) {
-            throw new ParseException("Identifiers MUST NOT be empty",
-                    new UnexpectedCharacterException(la, chars.currentOffset(), DIGIT, LETTER, HYPHEN));
+        int la = lookahead(1);
+        if (isOfClass(la, DOT | PLUS | EOI)) {
+            throw fail(EMPTY_IDENTIFIER, la, IDENTIFIER);
         }
     }
 
     /**
-     * Tries to consume the next character in the stream.
+     * Tries to consume the next character in the input.
      *
-     * @param expected the expected types of the next character
-     * @return the next character in the stream
+     * @param expected the class bits of the expected types of the next character
+     * @return the next character in the input or {@code -1} at the end of input
      * @throws UnexpectedCharacterException when encounters an unexpected character
      *                                      type
      */
-    private Character consumeNextCharacter(CharType... expected) {
-        try {
-            return chars.consume(expected);
-        } catch (UnexpectedElementException e) {
-            throw new UnexpectedCharacterException(e);
+    private int consumeNextCharacter(int expected) {
+        int la = lookahead(1);
+        if (!isOfClass(la, expected)) {
+            throw fail(UNEXPECTED_CHARACTER, la, expected);
         }
+        if (la != END_OF_INPUT) {
+            offset++;
+        }
+        return la;
     }
 
     /**
-     * Checks if the next character in the stream is valid.
+     * Checks if the next character in the input is valid.
      *
-     * @param expected the expected types of the next character
+     * @param expected the class bits of the expected types of the next character
      * @throws UnexpectedCharacterException if the next character is not valid
      */
-    private void ensureValidLookahead(CharType... expected) {
-        if (!chars.positiveLookahead(expected)) {
-            throw new UnexpectedCharacterException(chars.lookahead(1), chars.currentOffset(), expected);
+    private void ensureValidLookahead(int expected) {
+        int la = lookahead(1);
+        if (!isOfClass(la, expected)) {
+            throw fail(UNEXPECTED_CHARACTER, la, expected);
+        }
+    }
+
+    /**
+     * Returns the character at the specified position without consuming it.
+     *
+     * @param position the position of the character, relative to the offset
+     * @return the character at the specified position or {@code -1} at the
+     *         end of input
+     */
+    private int lookahead(int position) {
+        int idx = offset + position - 1;
+        if (idx < length) {
+            return input.charAt(idx);
+        }
+        return END_OF_INPUT;
+    }
+
+    /**
+     * Records a failure at the current offset.
+     *
+     * @param kind     the kind of the failure
+     * @param chr      the unexpected character or {@code -1} at the end of input
+     * @param expected the class bits of the expected types
+     * @return the exception to throw, the shared {@code FAILURE} if lenient
+     */
+    private RuntimeException fail(int kind, int chr, int expected) {
+        failureKind = kind;
+        failureOffset = offset;
+        failureCharacter = chr;
+        failureExpected = expected;
+        return lenient ? FAILURE : failure();
+    }
+
+    /**
+     * Returns the offset at which the parse failed.
+     *
+     * @return the offset of the failure
+     */
+    int getFailureOffset() {
+        return failureOffset;
+    }
+
+    /**
+     * Creates the exception describing the recorded failure.
+     *
+     * @return the exception describing the failure
+     */
+    RuntimeException failure() {
+        switch (failureKind) {
+        case EMPTY_INPUT:
+            return new IllegalArgumentException("Input string is NULL or empty");
+        case LEADING_ZEROES:
+            return new ParseException("Numeric identifier MUST NOT contain leading zeroes");
+        case EMPTY_IDENTIFIER:
+            return new ParseException("Identifiers MUST NOT be empty", unexpectedCharacter());
+        case NUMBER_TOO_LARGE:
+            return new NumberFormatException(
+                "For input string: \"" + input.subSequence(failureStart, failureOffset) + "\""
+            );
+        default:
+            return unexpectedCharacter();
         }
     }
+
+    /**
+     * Creates an exception for the unexpected character of the recorded failure.
+     *
+     * @return the exception describing the unexpected character
+     */
+    private UnexpectedCharacterException unexpectedCharacter() {
+        Character unexpected = (failureCharacter == END_OF_INPUT) ? null : Character.valueOf((char) failureCharacter);
+        return new UnexpectedCharacterException(unexpected, failureOffset, CharType.forMask(failureExpected));
+    }
+
+    /**
+     * Checks if a character is of one of the specified classes.
+     *
+     * @param chr      the character or {@code -1} at the end of input
+     * @param expected the class bits to check
+     * @return {@code true} if the character matches or {@code false} otherwise
+     */
+    private static boolean isOfClass(int chr, int expected) {
+        int charClass = (chr == END_OF_INPUT) ? EOI : classOf((char) chr);
+        return (charClass & expected) != 0;
+    }
+
+    /**
+     * Returns the class bits of a character.
+     *
+     * @param chr the character to classify
+     * @return the class bits or {@code 0} for illegal characters
+     */
+    private static int classOf(char chr) {
+        return (chr < ASCII_CLASSES.length) ? ASCII_CLASSES[chr] : 0;
+    }
 }
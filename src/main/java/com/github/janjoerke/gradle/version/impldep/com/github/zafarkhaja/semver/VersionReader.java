@@ -0,0 +1,819 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A reader parsing newline-delimited versions lazily.
+ *
+ * The input is read through a fixed buffer, or a memory-mapped window for
+ * files, and never held as a whole. Leading and trailing whitespace is
+ * ignored and blank lines are skipped. Lines which are not valid versions
+ * are passed to the {@code InvalidLineHandler} along with their offset,
+ * in bytes for byte input and in characters for character input, and
+ * reading continues with the next line.
+ *
+ * Byte input is expected to be ASCII compatible and is parsed without
+ * decoding it into strings. The common lines holding just a version core
+ * are parsed with a fast path converting up to eight digits at once; all
+ * other lines are handed to the regular parser through a view of the bytes.
+ *
+ * The reader is not safe for concurrent use.
+ */
+public final class VersionReader implements Closeable {
+
+    /**
+     * A handler of the lines which are not valid versions.
+     */
+    public interface InvalidLineHandler {
+
+        /**
+         * Handles an invalid line.
+         *
+         * @param lineNumber the number of the line, starting at {@code 1}
+         * @param offset     the offset of the first character of the line
+         *                   after leading whitespace
+         * @param line       the line without leading and trailing whitespace
+         * @param result     the failed parse result
+         */
+        void invalidLine(long lineNumber, long offset, String line, ParseResult result);
+    }
+
+    /**
+     * The handler ignoring all invalid lines.
+     */
+    private static final InvalidLineHandler IGNORE = new InvalidLineHandler() {
+        @Override
+        public void invalidLine(long lineNumber, long offset, String line, ParseResult result) {
+        }
+    };
+
+    /**
+     * The initial size of the buffers of streams and readers.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The minimum size of the windows mapped from files.
+     */
+    private static final int WINDOW_SIZE = 1 << 26;
+
+    /**
+     * The number of bytes converted at once.
+     */
+    private static final int WORD_SIZE = 8;
+
+    /**
+     * The source of the lines.
+     */
+    private final LineSource source;
+
+    /**
+     * The handler of the invalid lines.
+     */
+    private InvalidLineHandler handler = IGNORE;
+
+    /**
+     * The number of lines read so far.
+     */
+    private long lineNumber;
+
+    /**
+     * Constructs a {@code VersionReader} instance reading characters.
+     *
+     * @param reader the reader to read from
+     */
+    public VersionReader(Reader reader) {
+        this(new CharLineSource(reader));
+    }
+
+    /**
+     * Constructs a {@code VersionReader} instance reading ASCII bytes.
+     *
+     * @param in the stream to read from
+     */
+    public VersionReader(InputStream in) {
+        this(new StreamLineSource(in));
+    }
+
+    /**
+     * Constructs a {@code VersionReader} instance.
+     *
+     * @param source the source of the lines
+     */
+    private VersionReader(LineSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Opens a reader over a memory-mapped file of ASCII bytes.
+     *
+     * @param file the file to read
+     * @return the reader over the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static VersionReader open(Path file) throws IOException {
+        return new VersionReader(new MappedLineSource(FileChannel.open(file, StandardOpenOption.READ)));
+    }
+
+    /**
+     * Sets the handler of the lines which are not valid versions.
+     *
+     * @param handler the handler or {@code null} to ignore invalid lines
+     * @return this reader
+     */
+    public VersionReader setInvalidLineHandler(InvalidLineHandler handler) {
+        this.handler = (handler == null) ? IGNORE : handler;
+        return this;
+    }
+
+    /**
+     * Reads the next valid version.
+     *
+     * @return the next version or {@code null} at the end of the input
+     * @throws IOException if reading the input fails
+     */
+    public Version read() throws IOException {
+        while (source.nextLine()) {
+            lineNumber++;
+            if (source.isBlank()) {
+                continue;
+            }
+            Version version = source.parseVersionCore();
+            if (version != null) {
+                return version;
+            }
+            ParseResult result = Version.tryParse(source.line());
+            if (result.isValid()) {
+                return result.getVersion();
+            }
+            String line = source.line().toString();
+            handler.invalidLine(lineNumber, source.lineOffset(), line, Version.tryParse(line));
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of lines read so far.
+     *
+     * @return the number of the last line read
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Closes the underlying input.
+     *
+     * @throws IOException if closing the input fails
+     */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Finds the first byte of the word which is not an ASCII digit.
+     *
+     * A borrow or carry only affects the bytes above the byte causing it,
+     * so the lowest flagged byte is exact.
+     *
+     * @param word eight bytes in little-endian order
+     * @return the number of leading digits, up to eight
+     */
+    static int digitCount(long word) {
+        long flags = ((word - 0x3030303030303030L) | (word + 0x4646464646464646L)) & 0x8080808080808080L;
+        return Long.numberOfTrailingZeros(flags) >>> 3;
+    }
+
+    /**
+     * Converts the leading ASCII digits of a word into their value.
+     *
+     * @param word  eight bytes in little-endian order
+     * @param count the number of leading digits, from one to eight
+     * @return the value of the digits
+     */
+    static int digitValue(long word, int count) {
+        long digits = (word - 0x3030303030303030L) << ((WORD_SIZE - count) * 8);
+        digits = digits * 10 + (digits >>> 8);
+        digits = ((digits & 0x000000FF000000FFL) * (100 + (1000000L << 32))
+            + ((digits >>> 16) & 0x000000FF000000FFL) * (1 + (10000L << 32))) >>> 32;
+        return (int) digits;
+    }
+
+    /**
+     * A source of lines.
+     */
+    private abstract static class LineSource implements Closeable {
+
+        /**
+         * Advances to the next line.
+         *
+         * @return {@code true} if there is a line or {@code false} at the end
+         *         of the input
+         * @throws IOException if reading the input fails
+         */
+        abstract boolean nextLine() throws IOException;
+
+        /**
+         * Checks if the current line holds only whitespace.
+         *
+         * @return {@code true} if the line is blank or {@code false} otherwise
+         */
+        abstract boolean isBlank();
+
+        /**
+         * Parses the current line if it holds just a version core.
+         *
+         * @return the version or {@code null} if the line holds anything else
+         */
+        abstract Version parseVersionCore();
+
+        /**
+         * Returns a view of the current line, valid until the next line.
+         *
+         * @return the current line
+         */
+        abstract CharSequence line();
+
+        /**
+         * Returns the offset of the current line in the input.
+         *
+         * @return the offset of the current line
+         */
+        abstract long lineOffset();
+    }
+
+    /**
+     * A source of lines from ASCII bytes.
+     */
+    private abstract static class ByteLineSource extends LineSource {
+
+        /**
+         * The buffered bytes in little-endian order, up to the limit.
+         */
+        ByteBuffer buffer;
+
+        /**
+         * The offset of the first buffered byte in the input.
+         */
+        long bufferOffset;
+
+        /**
+         * The index of the first byte which has not been read yet.
+         */
+        int position;
+
+        /**
+         * The index of the first byte of the current line.
+         */
+        private int lineStart;
+
+        /**
+         * The index after the last byte of the current line.
+         */
+        private int lineEnd;
+
+        /**
+         * Buffers more bytes, keeping the bytes from the position on.
+         *
+         * @return {@code false} at the end of the input
+         * @throws IOException if reading the input fails
+         */
+        abstract boolean refill() throws IOException;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean nextLine() throws IOException {
+            int newline;
+            while ((newline = indexOfNewline(position)) < 0) {
+                if (!refill()) {
+                    if (position == buffer.limit()) {
+                        return false;
+                    }
+                    newline = buffer.limit();
+                    break;
+                }
+            }
+            int start = position;
+            int end = newline;
+            position = Math.min(newline + 1, buffer.limit());
+            while (start < end && isWhitespace(buffer.get(start))) {
+                start++;
+            }
+            while (end > start && isWhitespace(buffer.get(end - 1))) {
+                end--;
+            }
+            lineStart = start;
+            lineEnd = end;
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean isBlank() {
+            return lineStart == lineEnd;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        Version parseVersionCore() {
+            int pos = lineStart;
+            int[] numbers = new int[4];
+            for (int i = 0; i < numbers.length; i++) {
+                if (i > 0) {
+                    if (pos == lineEnd || buffer.get(pos) != '.') {
+                        return null;
+                    }
+                    pos++;
+                }
+                int count;
+                int value;
+                if (pos + WORD_SIZE <= buffer.limit()) {
+                    long word = buffer.getLong(pos);
+                    count = Math.min(digitCount(word), lineEnd - pos);
+                    if (count == 0 || count == WORD_SIZE) {
+                        return null;
+                    }
+                    value = digitValue(word, count);
+                } else {
+                    count = 0;
+                    value = 0;
+                    while (pos + count < lineEnd && isDigit(buffer.get(pos + count)) && count < WORD_SIZE) {
+                        value = value * 10 + (buffer.get(pos + count) - '0');
+                        count++;
+                    }
+                    if (count == 0 || count == WORD_SIZE) {
+                        return null;
+                    }
+                }
+                if (count > 1 && buffer.get(pos) == '0') {
+                    return null;
+                }
+                numbers[i] = value;
+                pos += count;
+            }
+            if (pos != lineEnd) {
+                return null;
+            }
+            return new Version(new NormalVersion(numbers[0], numbers[1], numbers[2], numbers[3]));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        CharSequence line() {
+            return new ByteSequence(buffer, lineStart, lineEnd);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        long lineOffset() {
+            return bufferOffset + lineStart;
+        }
+
+        /**
+         * Finds the next newline, eight bytes at a time.
+         *
+         * @param from the index to start at
+         * @return the index of the newline or {@code -1} if there is none
+         */
+        private int indexOfNewline(int from) {
+            int limit = buffer.limit();
+            int i = from;
+            for (; i + WORD_SIZE <= limit; i += WORD_SIZE) {
+                long word = buffer.getLong(i) ^ 0x0A0A0A0A0A0A0A0AL;
+                long zeros = (word - 0x0101010101010101L) & ~word & 0x8080808080808080L;
+                if (zeros != 0) {
+                    return i + (Long.numberOfTrailingZeros(zeros) >>> 3);
+                }
+            }
+            for (; i < limit; i++) {
+                if (buffer.get(i) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Checks if a byte is an ASCII digit.
+         *
+         * @param value the byte to check
+         * @return {@code true} if the byte is a digit or {@code false} otherwise
+         */
+        private static boolean isDigit(byte value) {
+            return value >= '0' && value <= '9';
+        }
+    }
+
+    /**
+     * A source of lines from an input stream.
+     */
+    private static final class StreamLineSource extends ByteLineSource {
+
+        /**
+         * The stream to read from.
+         */
+        private final InputStream in;
+
+        /**
+         * The array backing the buffer.
+         */
+        private byte[] array = new byte[BUFFER_SIZE];
+
+        /**
+         * Constructs a {@code StreamLineSource} instance.
+         *
+         * @param in the stream to read from
+         */
+        StreamLineSource(InputStream in) {
+            this.in = in;
+            buffer = wrap(array, 0);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean refill() throws IOException {
+            int remaining = buffer.limit() - position;
+            if (remaining == array.length) {
+                byte[] grown = new byte[array.length * 2];
+                System.arraycopy(array, position, grown, 0, remaining);
+                array = grown;
+            } else {
+                System.arraycopy(array, position, array, 0, remaining);
+            }
+            bufferOffset += position;
+            position = 0;
+            int read = in.read(array, remaining, array.length - remaining);
+            buffer = wrap(array, remaining + Math.max(read, 0));
+            return read >= 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        /**
+         * Wraps an array into a little-endian buffer.
+         *
+         * @param array the array to wrap
+         * @param limit the number of valid bytes
+         * @return the buffer
+         */
+        private static ByteBuffer wrap(byte[] array, int limit) {
+            ByteBuffer buffer = ByteBuffer.wrap(array).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.limit(limit);
+            return buffer;
+        }
+    }
+
+    /**
+     * A source of lines from a memory-mapped file.
+     */
+    private static final class MappedLineSource extends ByteLineSource {
+
+        /**
+         * The channel of the file.
+         */
+        private final FileChannel channel;
+
+        /**
+         * The size of the file.
+         */
+        private final long size;
+
+        /**
+         * Constructs a {@code MappedLineSource} instance.
+         *
+         * @param channel the channel of the file
+         * @throws IOException if the size of the file cannot be read
+         */
+        MappedLineSource(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            buffer = ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * Maps the next window of the file, starting at the position.
+         *
+         * {@inheritDoc}
+         */
+        @Override
+        boolean refill() throws IOException {
+            long start = bufferOffset + position;
+            int remaining = buffer.limit() - position;
+            if (bufferOffset + buffer.limit() == size && buffer.capacity() > 0) {
+                return false;
+            }
+            long length = Math.min(size - start, Math.max((long) WINDOW_SIZE, 2L * remaining));
+            if (length > Integer.MAX_VALUE) {
+                length = Integer.MAX_VALUE;
+            }
+            if (length <= remaining) {
+                return false;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length).order(ByteOrder.LITTLE_ENDIAN);
+            bufferOffset = start;
+            position = 0;
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * A source of lines from a reader.
+     */
+    private static final class CharLineSource extends LineSource {
+
+        /**
+         * The reader to read from.
+         */
+        private final Reader reader;
+
+        /**
+         * The buffered characters.
+         */
+        private char[] buffer = new char[BUFFER_SIZE];
+
+        /**
+         * The number of buffered characters.
+         */
+        private int limit;
+
+        /**
+         * The offset of the first buffered character in the input.
+         */
+        private long bufferOffset;
+
+        /**
+         * The index of the first character which has not been read yet.
+         */
+        private int position;
+
+        /**
+         * The index of the first character of the current line.
+         */
+        private int lineStart;
+
+        /**
+         * The index after the last character of the current line.
+         */
+        private int lineEnd;
+
+        /**
+         * Constructs a {@code CharLineSource} instance.
+         *
+         * @param reader the reader to read from
+         */
+        CharLineSource(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean nextLine() throws IOException {
+            int newline;
+            while ((newline = indexOfNewline(position)) < 0) {
+                if (!refill()) {
+                    if (position == limit) {
+                        return false;
+                    }
+                    newline = limit;
+                    break;
+                }
+            }
+            int start = position;
+            int end = newline;
+            position = Math.min(newline + 1, limit);
+            while (start < end && isWhitespace(buffer[start])) {
+                start++;
+            }
+            while (end > start && isWhitespace(buffer[end - 1])) {
+                end--;
+            }
+            lineStart = start;
+            lineEnd = end;
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean isBlank() {
+            return lineStart == lineEnd;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        Version parseVersionCore() {
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        CharSequence line() {
+            return CharBuffer.wrap(buffer, lineStart, lineEnd - lineStart);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        long lineOffset() {
+            return bufferOffset + lineStart;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        /**
+         * Buffers more characters, keeping the characters from the position on.
+         *
+         * @return {@code false} at the end of the input
+         * @throws IOException if reading the input fails
+         */
+        private boolean refill() throws IOException {
+            int remaining = limit - position;
+            if (remaining == buffer.length) {
+                char[] grown = new char[buffer.length * 2];
+                System.arraycopy(buffer, position, grown, 0, remaining);
+                buffer = grown;
+            } else {
+                System.arraycopy(buffer, position, buffer, 0, remaining);
+            }
+            bufferOffset += position;
+            position = 0;
+            int read = reader.read(buffer, remaining, buffer.length - remaining);
+            limit = remaining + Math.max(read, 0);
+            return read >= 0;
+        }
+
+        /**
+         * Finds the next newline.
+         *
+         * @param from the index to start at
+         * @return the index of the newline or {@code -1} if there is none
+         */
+        private int indexOfNewline(int from) {
+            for (int i = from; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * A view of ASCII bytes as characters.
+     */
+    private static final class ByteSequence implements CharSequence {
+
+        /**
+         * The bytes to view.
+         */
+        private final ByteBuffer bytes;
+
+        /**
+         * The index of the first byte, inclusive.
+         */
+        private final int start;
+
+        /**
+         * The index of the last byte, exclusive.
+         */
+        private final int end;
+
+        /**
+         * Constructs a {@code ByteSequence} instance.
+         *
+         * @param bytes the bytes to view
+         * @param start the index of the first byte, inclusive
+         * @param end   the index of the last byte, exclusive
+         */
+        ByteSequence(ByteBuffer bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            return (char) (bytes.get(start + index) & 0xFF);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if (from < 0 || to > end - start || from > to) {
+                throw new IndexOutOfBoundsException("Range: " + from + ", " + to);
+            }
+            return new ByteSequence(bytes, start + from, start + to);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            char[] chars = new char[end - start];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) (bytes.get(start + i) & 0xFF);
+            }
+            return new String(chars);
+        }
+    }
+
+    /**
+     * Checks if a character is whitespace surrounding a version.
+     *
+     * @param chr the character to check
+     * @return {@code true} if the character is whitespace or {@code false} otherwise
+     */
+    private static boolean isWhitespace(int chr) {
+        return chr == ' ' || chr == '\t' || chr == '\r';
+    }
+}
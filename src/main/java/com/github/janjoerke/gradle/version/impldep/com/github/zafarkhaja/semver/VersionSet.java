@@ -0,0 +1,516 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.Expression;
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.IntervalSet;
+
+/**
+ * An immutable set of versions sorted by precedence.
+ *
+ * The packed normal versions are kept in a {@code long} array, which answers
+ * most comparisons of a binary search without touching the versions. Only
+ * the versions with a pre-release version, build metadata or numbers too
+ * large to be packed are kept in a side table; the others are restored from
+ * their packed numbers when returned. All queries take logarithmic time.
+ *
+ * Versions are ordered with {@code compareTo}. Of several versions which
+ * differ only in their build metadata, the first one in the
+ * {@code BUILD_AWARE_ORDER} is kept. The range views share the arrays of
+ * the set they are created from.
+ */
+public final class VersionSet implements Iterable<Version> {
+
+    /**
+     * The empty version set.
+     */
+    private static final VersionSet EMPTY = new VersionSet(new long[0], new Version[0], 0, 0);
+
+    /**
+     * The packed normal versions in ascending order.
+     */
+    private final long[] keys;
+
+    /**
+     * The versions which cannot be restored from their packed normal version,
+     * {@code null} for the others.
+     */
+    private final Version[] metadata;
+
+    /**
+     * The index of the first version of this set, inclusive.
+     */
+    private final int from;
+
+    /**
+     * The index of the last version of this set, exclusive.
+     */
+    private final int to;
+
+    /**
+     * Constructs a {@code VersionSet} instance.
+     *
+     * @param keys     the packed normal versions in ascending order
+     * @param metadata the versions which cannot be restored from their keys
+     * @param from     the index of the first version, inclusive
+     * @param to       the index of the last version, exclusive
+     */
+    private VersionSet(long[] keys, Version[] metadata, int from, int to) {
+        this.keys = keys;
+        this.metadata = metadata;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Creates a set of the specified versions.
+     *
+     * @param versions the versions
+     * @return a new set of the versions
+     * @throws NullPointerException if a version is {@code null}
+     */
+    public static VersionSet of(Version... versions) {
+        return of(Arrays.asList(versions));
+    }
+
+    /**
+     * Creates a set of the specified versions.
+     *
+     * @param versions the versions
+     * @return a new set of the versions
+     * @throws NullPointerException if a version is {@code null}
+     */
+    public static VersionSet of(Collection<? extends Version> versions) {
+        List<Version> list = new ArrayList<Version>(versions);
+        if (list.isEmpty()) {
+            return EMPTY;
+        }
+        int[] order = Versions.sort(list);
+        long[] keys = new long[order.length];
+        Version[] metadata = new Version[order.length];
+        int size = 0;
+        for (int i = 0; i < order.length; i++) {
+            Version version = list.get(order[i]);
+            if (size > 0 && list.get(order[i - 1]).compareTo(version) == 0) {
+                Version kept = metadata[size - 1];
+                if (kept != null && Version.BUILD_AWARE_ORDER.compare(version, kept) < 0) {
+                    boolean restorable = keys[size - 1] != Version.UNPACKED && version.isNormal();
+                    metadata[size - 1] = restorable ? null : version;
+                }
+                continue;
+            }
+            long key = version.getPackedNormalVersion();
+            keys[size] = key;
+            if (key == Version.UNPACKED || !version.isNormal()) {
+                metadata[size] = version;
+            }
+            size++;
+        }
+        if (size < order.length) {
+            keys = Arrays.copyOf(keys, size);
+            metadata = Arrays.copyOf(metadata, size);
+        }
+        return new VersionSet(keys, metadata, 0, size);
+    }
+
+    /**
+     * Returns the number of versions in this set.
+     *
+     * @return the number of versions
+     */
+    public int size() {
+        return to - from;
+    }
+
+    /**
+     * Checks if this set contains no versions.
+     *
+     * @return {@code true} if this set is empty or {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return to == from;
+    }
+
+    /**
+     * Returns the version at the specified position in ascending order.
+     *
+     * @param index the position of the version
+     * @return the version at the position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Version get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return version(from + index);
+    }
+
+    /**
+     * Checks if this set contains a version equal to the specified one.
+     *
+     * @param version the version to look for
+     * @return {@code true} if this set contains the version
+     *         or {@code false} otherwise
+     */
+    public boolean contains(Version version) {
+        int index = lowerBound(version);
+        return index < to && compare(index, version) == 0;
+    }
+
+    /**
+     * Returns the lowest version of this set.
+     *
+     * @return the lowest version or {@code null} if this set is empty
+     */
+    public Version earliest() {
+        return isEmpty() ? null : version(from);
+    }
+
+    /**
+     * Returns the highest version of this set.
+     *
+     * @return the highest version or {@code null} if this set is empty
+     */
+    public Version latest() {
+        return isEmpty() ? null : version(to - 1);
+    }
+
+    /**
+     * Returns the highest version of this set satisfying the expression.
+     *
+     * Expressions which can be compiled into an {@code IntervalSet} are
+     * answered with one binary search per interval, all other expressions
+     * are checked against the versions from the highest one down.
+     *
+     * @param expr the expression to satisfy
+     * @return the highest satisfying version or {@code null} if there is none
+     */
+    public Version latestSatisfying(Expression expr) {
+        IntervalSet intervals;
+        try {
+            intervals = IntervalSet.compile(expr);
+        } catch (IllegalArgumentException e) {
+            for (int i = to - 1; i >= from; i--) {
+                Version version = version(i);
+                if (expr.interpret(version)) {
+                    return version;
+                }
+            }
+            return null;
+        }
+        for (int k = intervals.size() - 1; k >= 0; k--) {
+            Version upper = intervals.getUpper(k);
+            int index;
+            if (upper == null) {
+                index = to - 1;
+            } else if (intervals.isUpperInclusive(k)) {
+                index = upperBound(upper) - 1;
+            } else {
+                index = lowerBound(upper) - 1;
+            }
+            if (index < from) {
+                continue;
+            }
+            Version lower = intervals.getLower(k);
+            if (lower == null) {
+                return version(index);
+            }
+            int result = compare(index, lower);
+            if (result > 0 || (result == 0 && intervals.isLowerInclusive(k))) {
+                return version(index);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the lowest version of this set satisfying the expression.
+     *
+     * Expressions which can be compiled into an {@code IntervalSet} are
+     * answered with one binary search per interval, all other expressions
+     * are checked against the versions from the lowest one up.
+     *
+     * @param expr the expression to satisfy
+     * @return the lowest satisfying version or {@code null} if there is none
+     */
+    public Version earliestSatisfying(Expression expr) {
+        IntervalSet intervals;
+        try {
+            intervals = IntervalSet.compile(expr);
+        } catch (IllegalArgumentException e) {
+            for (int i = from; i < to; i++) {
+                Version version = version(i);
+                if (expr.interpret(version)) {
+                    return version;
+                }
+            }
+            return null;
+        }
+        for (int k = 0; k < intervals.size(); k++) {
+            Version lower = intervals.getLower(k);
+            int index;
+            if (lower == null) {
+                index = from;
+            } else if (intervals.isLowerInclusive(k)) {
+                index = lowerBound(lower);
+            } else {
+                index = upperBound(lower);
+            }
+            if (index >= to) {
+                continue;
+            }
+            Version upper = intervals.getUpper(k);
+            if (upper == null) {
+                return version(index);
+            }
+            int result = compare(index, upper);
+            if (result < 0 || (result == 0 && intervals.isUpperInclusive(k))) {
+                return version(index);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the highest version lower than or equal to the specified one.
+     *
+     * @param version the version to compare to
+     * @return the version or {@code null} if there is none
+     */
+    public Version floor(Version version) {
+        return versionOrNull(upperBound(version) - 1);
+    }
+
+    /**
+     * Returns the lowest version higher than or equal to the specified one.
+     *
+     * @param version the version to compare to
+     * @return the version or {@code null} if there is none
+     */
+    public Version ceiling(Version version) {
+        return versionOrNull(lowerBound(version));
+    }
+
+    /**
+     * Returns the highest version strictly lower than the specified one.
+     *
+     * @param version the version to compare to
+     * @return the version or {@code null} if there is none
+     */
+    public Version lower(Version version) {
+        return versionOrNull(lowerBound(version) - 1);
+    }
+
+    /**
+     * Returns the lowest version strictly higher than the specified one.
+     *
+     * @param version the version to compare to
+     * @return the version or {@code null} if there is none
+     */
+    public Version higher(Version version) {
+        return versionOrNull(upperBound(version));
+    }
+
+    /**
+     * Returns a view of the versions lower than the specified one.
+     *
+     * @param toVersion the upper bound of the view
+     * @param inclusive whether the upper bound is part of the view
+     * @return the versions below the bound
+     */
+    public VersionSet headSet(Version toVersion, boolean inclusive) {
+        int end = inclusive ? upperBound(toVersion) : lowerBound(toVersion);
+        return new VersionSet(keys, metadata, from, end);
+    }
+
+    /**
+     * Returns a view of the versions higher than the specified one.
+     *
+     * @param fromVersion the lower bound of the view
+     * @param inclusive   whether the lower bound is part of the view
+     * @return the versions above the bound
+     */
+    public VersionSet tailSet(Version fromVersion, boolean inclusive) {
+        int start = inclusive ? lowerBound(fromVersion) : upperBound(fromVersion);
+        return new VersionSet(keys, metadata, start, to);
+    }
+
+    /**
+     * Returns a view of the versions between the specified ones.
+     *
+     * @param fromVersion   the lower bound of the view
+     * @param fromInclusive whether the lower bound is part of the view
+     * @param toVersion     the upper bound of the view
+     * @param toInclusive   whether the upper bound is part of the view
+     * @return the versions between the bounds, which is empty if the lower
+     *         bound is higher than the upper bound
+     */
+    public VersionSet subSet(Version fromVersion, boolean fromInclusive, Version toVersion, boolean toInclusive) {
+        int start = fromInclusive ? lowerBound(fromVersion) : upperBound(fromVersion);
+        int end = toInclusive ? upperBound(toVersion) : lowerBound(toVersion);
+        return new VersionSet(keys, metadata, start, Math.max(start, end));
+    }
+
+    /**
+     * Returns the versions of this set in ascending order.
+     *
+     * @return an unmodifiable list of the versions
+     */
+    public List<Version> toList() {
+        List<Version> list = new ArrayList<Version>(size());
+        for (int i = from; i < to; i++) {
+            list.add(version(i));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Returns an iterator over the versions in ascending order.
+     *
+     * @return an iterator over the versions
+     */
+    @Override
+    public Iterator<Version> iterator() {
+        return new Iterator<Version>() {
+
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public Version next() {
+                if (next >= to) {
+                    throw new NoSuchElementException();
+                }
+                return version(next++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("VersionSet is immutable");
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    /**
+     * Returns the version at the specified index of the arrays.
+     *
+     * @param index the index into the arrays
+     * @return the version
+     */
+    private Version version(int index) {
+        Version version = metadata[index];
+        if (version == null) {
+            version = new Version(NormalVersion.unpack(keys[index]));
+        }
+        return version;
+    }
+
+    /**
+     * Returns the version at the specified index of the arrays if the index
+     * belongs to this set.
+     *
+     * @param index the index into the arrays
+     * @return the version or {@code null} if the index is out of range
+     */
+    private Version versionOrNull(int index) {
+        return (index >= from && index < to) ? version(index) : null;
+    }
+
+    /**
+     * Compares the version at the specified index to another version.
+     *
+     * @param index   the index into the arrays
+     * @param version the version to compare to
+     * @return integer result of comparison compatible with
+     *         the {@code Comparable.compareTo} method
+     */
+    private int compare(int index, Version version) {
+        long key = keys[index];
+        long other = version.getPackedNormalVersion();
+        if (key != other && key != Version.UNPACKED && other != Version.UNPACKED) {
+            return Long.compareUnsigned(key, other);
+        }
+        return version(index).compareTo(version);
+    }
+
+    /**
+     * Finds the first version higher than or equal to the specified one.
+     *
+     * @param version the version to look for
+     * @return the index into the arrays, {@code to} if there is none
+     */
+    private int lowerBound(Version version) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, version) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first version strictly higher than the specified one.
+     *
+     * @param version the version to look for
+     * @return the index into the arrays, {@code to} if there is none
+     */
+    private int upperBound(Version version) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, version) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
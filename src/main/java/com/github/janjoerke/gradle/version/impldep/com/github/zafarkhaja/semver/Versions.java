@@ -0,0 +1,506 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Bulk operations on many versions at once.
+ *
+ * The parsing methods split the inputs into chunks which are parsed in
+ * parallel and never throw for invalid inputs. The sorting methods do not move the versions but return a permutation,
+ * the indexes of the inputs in ascending order, so that callers can keep
+ * other data aligned with the inputs. The sort is stable, versions that
+ * compare equal keep their input order.
+ */
+public final class Versions {
+
+    /**
+     * The number of bits sorted by each radix pass.
+     */
+    private static final int RADIX_BITS = 8;
+
+    /**
+     * The number of buckets of each radix pass.
+     */
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    /**
+     * The length of the ranges sorted by insertion instead of merging.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * The number of inputs which are parsed sequentially by one task.
+     */
+    private static final int PARSE_CHUNK_SIZE = 1024;
+
+    /**
+     * Prevents instantiation.
+     */
+    private Versions() {
+    }
+
+    /**
+     * Parses version strings in parallel.
+     *
+     * The inputs are split into chunks which are parsed on the common
+     * {@code ForkJoinPool}. Each chunk collects its invalid inputs with the
+     * exception-free {@code Version.tryParse} instead of failing fast.
+     *
+     * @param inputs the version strings to parse
+     * @return the versions and the failures by input index
+     * @see Version#tryParse(CharSequence)
+     */
+    public static ParsedVersions parseAll(List<? extends CharSequence> inputs) {
+        List<? extends CharSequence> list = randomAccess(inputs);
+        Version[] versions = new Version[list.size()];
+        ParseTask task = new ParseTask(list, versions, 0, versions.length);
+        if (versions.length <= PARSE_CHUNK_SIZE) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        return new ParsedVersions(versions, task.invalidIndexes, task.failures);
+    }
+
+    /**
+     * Returns a stream of the versions parsed from the valid inputs.
+     *
+     * The inputs are parsed lazily as the stream is consumed and invalid
+     * inputs are skipped. A parallel stream splits the inputs across the
+     * threads of the common {@code ForkJoinPool}.
+     *
+     * @param inputs   the version strings to parse
+     * @param parallel whether the stream is parallel
+     * @return the stream of versions in input order
+     * @see #spliterator(List)
+     */
+    public static Stream<Version> stream(List<? extends CharSequence> inputs, boolean parallel) {
+        return StreamSupport.stream(spliterator(inputs), parallel);
+    }
+
+    /**
+     * Returns a spliterator over the versions parsed from the valid inputs.
+     *
+     * The spliterator splits the inputs in halves, it is ordered and its
+     * size estimate is the number of remaining inputs.
+     *
+     * @param inputs the version strings to parse
+     * @return the spliterator over the versions
+     */
+    public static Spliterator<Version> spliterator(List<? extends CharSequence> inputs) {
+        List<? extends CharSequence> list = randomAccess(inputs);
+        return new VersionSpliterator(list, 0, list.size());
+    }
+
+    /**
+     * Sorts versions by precedence.
+     *
+     * The versions are radix sorted by their packed normal versions, only
+     * versions with equal normal versions and a pre-release version, as well
+     * as versions with numbers too large to be packed, are compared with
+     * {@code compareTo}.
+     *
+     * @param versions the versions to sort
+     * @return the indexes of the versions in ascending order
+     * @throws NullPointerException if a version is {@code null}
+     */
+    public static int[] sort(List<? extends Version> versions) {
+        Version[] array = versions.toArray(new Version[versions.size()]);
+        int[] order = new int[array.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        return sort(array, order);
+    }
+
+    /**
+     * Parses and sorts version strings by precedence.
+     *
+     * The strings are parsed without exceptions, strings which are not
+     * valid versions are left out of the result.
+     *
+     * @param versions the version strings to sort
+     * @return the indexes of the valid version strings in ascending order
+     * @see #sort(List)
+     */
+    public static int[] sortStrings(List<? extends CharSequence> versions) {
+        Version[] parsed = new Version[versions.size()];
+        int[] indexes = new int[parsed.length];
+        int size = 0;
+        for (int i = 0; i < parsed.length; i++) {
+            ParseResult result = Version.tryParse(versions.get(i));
+            if (result.isValid()) {
+                parsed[size] = result.getVersion();
+                indexes[size++] = i;
+            }
+        }
+        return sort(Arrays.copyOf(parsed, size), Arrays.copyOf(indexes, size));
+    }
+
+    /**
+     * Sorts versions by precedence.
+     *
+     * @param versions the versions to sort
+     * @param indexes  the indexes to report for the versions
+     * @return the indexes of the versions in ascending order
+     */
+    private static int[] sort(Version[] versions, int[] indexes) {
+        int size = versions.length;
+        long[] keys = new long[size];
+        int[] packed = new int[size];
+        int[] unpacked = new int[size];
+        int packedSize = 0;
+        int unpackedSize = 0;
+        for (int i = 0; i < size; i++) {
+            long key = versions[i].getPackedNormalVersion();
+            if (key == Version.UNPACKED) {
+                unpacked[unpackedSize++] = i;
+            } else {
+                keys[packedSize] = key;
+                packed[packedSize++] = i;
+            }
+        }
+        radixSort(keys, packed, packedSize);
+        sortTies(keys, packed, packedSize, versions);
+        mergeSort(unpacked, 0, unpackedSize, new int[unpackedSize], versions);
+
+        int[] order = new int[size];
+        int p = 0;
+        int u = 0;
+        for (int i = 0; i < size; i++) {
+            if (u == unpackedSize
+                    || (p < packedSize && versions[packed[p]].compareTo(versions[unpacked[u]]) <= 0)) {
+                order[i] = indexes[packed[p++]];
+            } else {
+                order[i] = indexes[unpacked[u++]];
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Sorts positions by their keys, compared as unsigned numbers, with a
+     * stable least significant digit radix sort.
+     *
+     * The passes over digits which are equal for all keys are skipped.
+     *
+     * @param keys      the keys of the positions, sorted along
+     * @param positions the positions to sort
+     * @param size      the number of positions
+     */
+    private static void radixSort(long[] keys, int[] positions, int size) {
+        long[] keyBuffer = new long[size];
+        int[] positionBuffer = new int[size];
+        int[] counts = new int[RADIX];
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+            }
+            if (size == 0 || counts[(int) (keys[0] >>> shift) & (RADIX - 1)] == size) {
+                continue;
+            }
+            int offset = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                int count = counts[digit];
+                counts[digit] = offset;
+                offset += count;
+            }
+            for (int i = 0; i < size; i++) {
+                int target = counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+                keyBuffer[target] = keys[i];
+                positionBuffer[target] = positions[i];
+            }
+            System.arraycopy(keyBuffer, 0, keys, 0, size);
+            System.arraycopy(positionBuffer, 0, positions, 0, size);
+        }
+    }
+
+    /**
+     * Sorts the runs of positions with equal keys which contain versions
+     * with pre-release versions or build metadata.
+     *
+     * @param keys      the sorted keys of the positions
+     * @param positions the positions sorted by their keys
+     * @param size      the number of positions
+     * @param versions  the versions at the positions
+     */
+    private static void sortTies(long[] keys, int[] positions, int size, Version[] versions) {
+        int[] buffer = null;
+        int start = 0;
+        while (start < size) {
+            int end = start + 1;
+            boolean normal = versions[positions[start]].isNormal();
+            while (end < size && keys[end] == keys[start]) {
+                normal &= versions[positions[end]].isNormal();
+                end++;
+            }
+            if (!normal && end - start > 1) {
+                if (buffer == null) {
+                    buffer = new int[size];
+                }
+                mergeSort(positions, start, end, buffer, versions);
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Sorts a range of positions by their versions with a stable merge sort.
+     *
+     * @param positions the positions to sort
+     * @param from      the start of the range, inclusive
+     * @param to        the end of the range, exclusive
+     * @param buffer    a buffer at least as long as the range end
+     * @param versions  the versions at the positions
+     */
+    private static void mergeSort(int[] positions, int from, int to, int[] buffer, Version[] versions) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int position = positions[i];
+                int j = i - 1;
+                while (j >= from && versions[positions[j]].compareTo(versions[position]) > 0) {
+                    positions[j + 1] = positions[j];
+                    j--;
+                }
+                positions[j + 1] = position;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(positions, from, mid, buffer, versions);
+        mergeSort(positions, mid, to, buffer, versions);
+        System.arraycopy(positions, from, buffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right == to
+                    || (left < mid && versions[buffer[left]].compareTo(versions[buffer[right]]) <= 0)) {
+                positions[i] = buffer[left++];
+            } else {
+                positions[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Returns a list with constant time positional access.
+     *
+     * @param inputs the list to access
+     * @return the list itself or a copy of it
+     */
+    private static List<? extends CharSequence> randomAccess(List<? extends CharSequence> inputs) {
+        if (inputs instanceof RandomAccess) {
+            return inputs;
+        }
+        return new ArrayList<CharSequence>(inputs);
+    }
+
+    /**
+     * A task parsing a range of inputs, splitting it into chunks.
+     */
+    private static final class ParseTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The inputs to parse.
+         */
+        private final List<? extends CharSequence> inputs;
+
+        /**
+         * The parsed versions by input index, shared by all tasks.
+         */
+        private final Version[] versions;
+
+        /**
+         * The index of the first input of the range, inclusive.
+         */
+        private final int from;
+
+        /**
+         * The index of the last input of the range, exclusive.
+         */
+        private final int to;
+
+        /**
+         * The indexes of the invalid inputs of the range, once computed.
+         */
+        private int[] invalidIndexes;
+
+        /**
+         * The failures of the invalid inputs of the range, once computed.
+         */
+        private ParseResult[] failures;
+
+        /**
+         * Constructs a {@code ParseTask} instance.
+         *
+         * @param inputs   the inputs to parse
+         * @param versions the parsed versions by input index
+         * @param from     the index of the first input, inclusive
+         * @param to       the index of the last input, exclusive
+         */
+        ParseTask(List<? extends CharSequence> inputs, Version[] versions, int from, int to) {
+            this.inputs = inputs;
+            this.versions = versions;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Parses the range or splits it and joins the failures of both halves.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= PARSE_CHUNK_SIZE) {
+                parseChunk();
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            ParseTask left = new ParseTask(inputs, versions, from, mid);
+            ParseTask right = new ParseTask(inputs, versions, mid, to);
+            invokeAll(left, right);
+            int count = left.invalidIndexes.length;
+            invalidIndexes = Arrays.copyOf(left.invalidIndexes, count + right.invalidIndexes.length);
+            System.arraycopy(right.invalidIndexes, 0, invalidIndexes, count, right.invalidIndexes.length);
+            failures = Arrays.copyOf(left.failures, count + right.failures.length);
+            System.arraycopy(right.failures, 0, failures, count, right.failures.length);
+        }
+
+        /**
+         * Parses the range sequentially.
+         */
+        private void parseChunk() {
+            int[] indexes = new int[0];
+            ParseResult[] results = new ParseResult[0];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                ParseResult result = Version.tryParse(inputs.get(i));
+                if (result.isValid()) {
+                    versions[i] = result.getVersion();
+                } else {
+                    if (count == indexes.length) {
+                        indexes = Arrays.copyOf(indexes, count * 2 + 4);
+                        results = Arrays.copyOf(results, count * 2 + 4);
+                    }
+                    indexes[count] = i;
+                    results[count++] = result;
+                }
+            }
+            invalidIndexes = Arrays.copyOf(indexes, count);
+            failures = Arrays.copyOf(results, count);
+        }
+    }
+
+    /**
+     * A spliterator parsing a range of inputs, skipping the invalid ones.
+     */
+    private static final class VersionSpliterator implements Spliterator<Version> {
+
+        /**
+         * The inputs to parse.
+         */
+        private final List<? extends CharSequence> inputs;
+
+        /**
+         * The index of the next input to parse.
+         */
+        private int index;
+
+        /**
+         * The index of the last input of the range, exclusive.
+         */
+        private final int end;
+
+        /**
+         * Constructs a {@code VersionSpliterator} instance.
+         *
+         * @param inputs the inputs to parse
+         * @param index  the index of the first input, inclusive
+         * @param end    the index of the last input, exclusive
+         */
+        VersionSpliterator(List<? extends CharSequence> inputs, int index, int end) {
+            this.inputs = inputs;
+            this.index = index;
+            this.end = end;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super Version> action) {
+            while (index < end) {
+                ParseResult result = Version.tryParse(inputs.get(index++));
+                if (result.isValid()) {
+                    action.accept(result.getVersion());
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Spliterator<Version> trySplit() {
+            int mid = (index + end) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            Spliterator<Version> prefix = new VersionSpliterator(inputs, index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
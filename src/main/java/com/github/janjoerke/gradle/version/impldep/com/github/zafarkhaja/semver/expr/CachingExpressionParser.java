@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Parser;
+
+/**
+ * A parser for the SemVer Expressions which memoizes the parsed expressions by
+ * their input string.
+ *
+ * Each expression string is parsed only once as long as it stays in the cache.
+ * The cache holds at most the configured number of expressions and evicts the
+ * oldest ones first. The parser is safe for concurrent use.
+ *
+ * The returned expressions wrap the shared AST, so that combining them with
+ * {@code CompositeExpression.and} or {@code CompositeExpression.or} does not
+ * affect other callers.
+ */
+public class CachingExpressionParser implements Parser<Expression> {
+
+    /**
+     * A cached expression in the insertion order queue.
+     */
+    private static class Entry {
+
+        /**
+         * The input string of the expression.
+         */
+        final String key;
+
+        /**
+         * The parsed expression.
+         */
+        final Expression expression;
+
+        /**
+         * Constructs an {@code Entry} instance.
+         *
+         * @param key        the input string of the expression
+         * @param expression the parsed expression
+         */
+        Entry(String key, Expression expression) {
+            this.key = key;
+            this.expression = expression;
+        }
+    }
+
+    /**
+     * The parser used for the expressions which are not cached yet.
+     */
+    private final Parser<Expression> parser;
+
+    /**
+     * The maximum number of cached expressions.
+     */
+    private final int maximumSize;
+
+    /**
+     * The cached expressions by input string.
+     */
+    private final ConcurrentMap<String, Expression> expressions = new ConcurrentHashMap<String, Expression>();
+
+    /**
+     * The cached expressions in insertion order, used for eviction.
+     *
+     * The entries remember the expression they were queued for, so that an
+     * outdated entry never evicts the expression cached for the same input
+     * string later.
+     */
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<Entry>();
+
+    /**
+     * The number of entries in the insertion order queue.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Constructs a {@code CachingExpressionParser} instance.
+     *
+     * @param parser      the parser used for the expressions which are not
+     *                    cached yet, it must be safe for concurrent use
+     * @param maximumSize the maximum number of cached expressions
+     * @throws IllegalArgumentException if the maximum size is not positive
+     */
+    public CachingExpressionParser(Parser<Expression> parser, int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size MUST be a positive integer.");
+        }
+        this.parser = parser;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Parses the SemVer Expressions or returns the cached result.
+     *
+     * @param input a string representing the SemVer Expression
+     * @return the AST for the SemVer Expressions
+     * @throws LexerException           when encounters an illegal character
+     * @throws UnexpectedTokenException when consumes a token of an unexpected type
+     */
+    @Override
+    public Expression parse(String input) {
+        Expression expr = expressions.get(input);
+        if (expr == null) {
+            expr = parser.parse(input);
+            Expression existing = expressions.putIfAbsent(input, expr);
+            if (existing != null) {
+                expr = existing;
+            } else {
+                insertionOrder.add(new Entry(input, expr));
+                queued.incrementAndGet();
+                evictOverflow();
+            }
+        }
+        return new CompositeExpression(expr);
+    }
+
+    /**
+     * Returns the number of cached expressions.
+     *
+     * @return the number of cached expressions
+     */
+    public int size() {
+        return expressions.size();
+    }
+
+    /**
+     * Evicts the oldest expressions while more than the maximum number of
+     * expressions are cached.
+     */
+    private void evictOverflow() {
+        while (queued.get() > maximumSize) {
+            Entry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            queued.decrementAndGet();
+            expressions.remove(oldest.key, oldest.expression);
+        }
+    }
+}
@@ -24,6 +24,10 @@
  *******************************************************************************/
 package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
 
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.ParseException;
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.UnexpectedCharacterException;
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
@@ -35,7 +39,7 @@ import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.
  * @author Zafar Khaja <zafarkhaja@gmail.com>
  * @since 0.9.0
  */
-public class CompositeExpression implements Expression {
+public class CompositeExpression implements CompilableExpression {
 
     /**
      * A class with static helper methods.
@@ -264,4 +268,70 @@ public class CompositeExpression implements Expression {
     public boolean interpret(Version version) {
         return exprTree.interpret(version);
     }
+
+    /**
+     * Interprets the expression against every version of the array.
+     *
+     * Each comparison of the expression is evaluated over the whole array at
+     * once, which is considerably faster than calling {@link #interpret(Version)}
+     * for each version.
+     *
+     * @param versions the versions to interpret against
+     * @return a bit set with the indexes of the versions satisfying
+     *         the expression
+     */
+    public BitSet interpretAll(Version[] versions) {
+        return new VersionBatch(versions).interpret(exprTree);
+    }
+
+    /**
+     * Interprets the expression against every version of the collection.
+     *
+     * @param versions the versions to interpret against
+     * @return a bit set with the indexes, in iteration order, of the versions
+     *         satisfying the expression
+     * @see #interpretAll(Version[])
+     */
+    public BitSet interpretAll(Collection<? extends Version> versions) {
+        return interpretAll(versions.toArray(new Version[versions.size()]));
+    }
+
+    /**
+     * Returns the versions of the collection which satisfy the expression.
+     *
+     * @param versions the versions to filter
+     * @return a list of the versions satisfying the expression,
+     *         in iteration order
+     * @see #interpretAll(Version[])
+     */
+    public List<Version> filter(Collection<? extends Version> versions) {
+        VersionBatch batch = new VersionBatch(versions.toArray(new Version[versions.size()]));
+        return batch.select(batch.interpret(exprTree));
+    }
+
+    /**
+     * Returns the expression tree.
+     *
+     * @return the root of the expression tree
+     */
+    Expression getTree() {
+        return exprTree;
+    }
+
+    /**
+     * Compiles the expression tree into a set of disjoint version intervals.
+     *
+     * The resulting set is satisfied by the same versions as this expression
+     * and is interpreted with a binary search instead of walking the tree.
+     * Later changes to this expression do not affect the compiled set.
+     *
+     * @return the set of versions satisfying this expression
+     * @throws IllegalArgumentException if the tree contains an expression
+     *                                  which cannot be compiled
+     * @see IntervalSet#compile(Expression)
+     */
+    @Override
+    public IntervalSet compile() {
+        return IntervalSet.compile(exprTree);
+    }
 }
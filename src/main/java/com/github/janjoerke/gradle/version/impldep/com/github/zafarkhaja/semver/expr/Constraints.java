@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.VersionSet;
+
+/**
+ * The conjunction of many expressions, solved as one set of intervals.
+ *
+ * The expressions are compiled and intersected once, so the versions
+ * satisfying all of them are found by a single binary search per interval
+ * in a {@code VersionSet} or a single pass over a list of versions instead
+ * of interpreting every expression against every version. Expressions
+ * which cannot be compiled are interpreted against the versions left by
+ * the intersection.
+ *
+ * If the expressions cannot be satisfied together, a minimal subset of
+ * them which already conflicts is reported.
+ */
+public final class Constraints implements CompilableExpression {
+
+    /**
+     * The expressions to satisfy.
+     */
+    private final List<Expression> expressions;
+
+    /**
+     * The intersection of the expressions which can be compiled.
+     */
+    private final IntervalSet intersection;
+
+    /**
+     * The indexes of the expressions which cannot be compiled.
+     */
+    private final int[] uncompiled;
+
+    /**
+     * The indexes of a minimal conflicting subset of the expressions,
+     * empty if the intersection is not empty.
+     */
+    private final int[] conflict;
+
+    /**
+     * Constructs a {@code Constraints} instance.
+     *
+     * @param expressions  the expressions to satisfy
+     * @param intersection the intersection of the compiled expressions
+     * @param uncompiled   the indexes of the expressions which cannot be compiled
+     * @param conflict     the indexes of a minimal conflicting subset
+     */
+    private Constraints(List<Expression> expressions, IntervalSet intersection, int[] uncompiled, int[] conflict) {
+        this.expressions = expressions;
+        this.intersection = intersection;
+        this.uncompiled = uncompiled;
+        this.conflict = conflict;
+    }
+
+    /**
+     * Solves the conjunction of the specified expressions.
+     *
+     * @param expressions the expressions to satisfy
+     * @return the solved constraints
+     */
+    public static Constraints of(List<? extends Expression> expressions) {
+        List<Expression> list = Collections.unmodifiableList(new ArrayList<Expression>(expressions));
+        IntervalSet[] sets = new IntervalSet[list.size()];
+        int[] uncompiled = new int[sets.length];
+        int uncompiledCount = 0;
+        IntervalSet intersection = IntervalSet.all();
+        for (int i = 0; i < sets.length; i++) {
+            try {
+                sets[i] = IntervalSet.compile(list.get(i));
+            } catch (IllegalArgumentException e) {
+                uncompiled[uncompiledCount++] = i;
+                continue;
+            }
+            intersection = intersection.intersect(sets[i]);
+        }
+        int[] conflict = intersection.isEmpty() ? minimalConflict(sets) : new int[0];
+        return new Constraints(list, intersection, Arrays.copyOf(uncompiled, uncompiledCount), conflict);
+    }
+
+    /**
+     * Returns the expressions to satisfy.
+     *
+     * @return an unmodifiable list of the expressions
+     */
+    public List<Expression> getExpressions() {
+        return expressions;
+    }
+
+    /**
+     * Returns the intersection of the expressions which can be compiled.
+     *
+     * @return the versions satisfying all compiled expressions
+     */
+    public IntervalSet getIntersection() {
+        return intersection;
+    }
+
+    /**
+     * Checks if the expressions may be satisfied together.
+     *
+     * Expressions which cannot be compiled are not taken into account, so
+     * a version satisfying all of them might still not exist.
+     *
+     * @return {@code false} if no version satisfies all expressions
+     */
+    public boolean isSatisfiable() {
+        return !intersection.isEmpty();
+    }
+
+    /**
+     * Returns a minimal subset of the expressions which cannot be satisfied
+     * together, any smaller subset of which can.
+     *
+     * @return the conflicting expressions in their original order, or an
+     *         empty list if the expressions are satisfiable
+     */
+    public List<Expression> getConflict() {
+        List<Expression> result = new ArrayList<Expression>(conflict.length);
+        for (int index : conflict) {
+            result.add(expressions.get(index));
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the version satisfies all expressions.
+     *
+     * @param version the version to interpret against
+     * @return {@code true} if the version satisfies all expressions
+     *         or {@code false} otherwise
+     */
+    @Override
+    public boolean interpret(Version version) {
+        return intersection.interpret(version) && satisfiesUncompiled(version);
+    }
+
+    /**
+     * Returns the intersection of the expressions.
+     *
+     * @return the versions satisfying all expressions
+     * @throws IllegalArgumentException if an expression cannot be compiled
+     */
+    @Override
+    public IntervalSet compile() {
+        if (uncompiled.length > 0) {
+            throw new IllegalArgumentException(
+                "Cannot compile expression of type " + expressions.get(uncompiled[0]).getClass().getName()
+            );
+        }
+        return intersection;
+    }
+
+    /**
+     * Returns the highest version of the set satisfying all expressions.
+     *
+     * @param versions the versions to choose from
+     * @return the highest satisfying version or {@code null} if there is none
+     */
+    public Version highest(VersionSet versions) {
+        if (uncompiled.length == 0) {
+            return versions.latestSatisfying(intersection);
+        }
+        for (int k = intersection.size() - 1; k >= 0; k--) {
+            VersionSet slice = slice(versions, k);
+            for (int i = slice.size() - 1; i >= 0; i--) {
+                Version version = slice.get(i);
+                if (satisfiesUncompiled(version)) {
+                    return version;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the lowest version of the set satisfying all expressions.
+     *
+     * @param versions the versions to choose from
+     * @return the lowest satisfying version or {@code null} if there is none
+     */
+    public Version lowest(VersionSet versions) {
+        if (uncompiled.length == 0) {
+            return versions.earliestSatisfying(intersection);
+        }
+        for (int k = 0; k < intersection.size(); k++) {
+            VersionSet slice = slice(versions, k);
+            for (int i = 0; i < slice.size(); i++) {
+                Version version = slice.get(i);
+                if (satisfiesUncompiled(version)) {
+                    return version;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the highest version satisfying all expressions in a single
+     * pass over the versions.
+     *
+     * @param versions the versions to choose from
+     * @return the highest satisfying version, the first one of equal
+     *         precedence, or {@code null} if there is none
+     */
+    public Version highest(Iterable<? extends Version> versions) {
+        Version result = null;
+        for (Version version : versions) {
+            if ((result == null || version.compareTo(result) > 0) && interpret(version)) {
+                result = version;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the lowest version satisfying all expressions in a single
+     * pass over the versions.
+     *
+     * @param versions the versions to choose from
+     * @return the lowest satisfying version, the first one of equal
+     *         precedence, or {@code null} if there is none
+     */
+    public Version lowest(Iterable<? extends Version> versions) {
+        Version result = null;
+        for (Version version : versions) {
+            if ((result == null || version.compareTo(result) < 0) && interpret(version)) {
+                result = version;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the version satisfies the expressions which cannot be compiled.
+     *
+     * @param version the version to interpret against
+     * @return {@code true} if the version satisfies these expressions
+     */
+    private boolean satisfiesUncompiled(Version version) {
+        for (int index : uncompiled) {
+            if (!expressions.get(index).interpret(version)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the versions of the set lying in an interval of the intersection.
+     *
+     * @param versions the versions to choose from
+     * @param k        the index of the interval
+     * @return the versions in the interval
+     */
+    private VersionSet slice(VersionSet versions, int k) {
+        VersionSet slice = versions;
+        if (intersection.getLower(k) != null) {
+            slice = slice.tailSet(intersection.getLower(k), intersection.isLowerInclusive(k));
+        }
+        if (intersection.getUpper(k) != null) {
+            slice = slice.headSet(intersection.getUpper(k), intersection.isUpperInclusive(k));
+        }
+        return slice;
+    }
+
+    /**
+     * Finds a minimal subset of the sets with an empty intersection.
+     *
+     * The sets are intersected in order until the intersection becomes
+     * empty. The set emptying it belongs to the conflict, and the search
+     * starts over from the conflict found so far, restricted to the sets
+     * before that one, until the conflict on its own is empty. Each round
+     * adds one set, so this takes one pass over the sets per member of the
+     * conflict.
+     *
+     * @param sets the compiled sets, {@code null} for the expressions which
+     *             cannot be compiled
+     * @return the indexes of the conflicting sets in ascending order
+     */
+    private static int[] minimalConflict(IntervalSet[] sets) {
+        int[] conflict = new int[sets.length];
+        int size = 0;
+        int limit = sets.length;
+        IntervalSet base = IntervalSet.all();
+        while (!base.isEmpty()) {
+            IntervalSet accumulated = base;
+            int index = 0;
+            while (index < limit) {
+                if (sets[index] != null) {
+                    accumulated = accumulated.intersect(sets[index]);
+                    if (accumulated.isEmpty()) {
+                        break;
+                    }
+                }
+                index++;
+            }
+            conflict[size++] = index;
+            base = base.intersect(sets[index]);
+            limit = index;
+        }
+        conflict = Arrays.copyOf(conflict, size);
+        Arrays.sort(conflict);
+        return conflict;
+    }
+}
@@ -32,7 +32,7 @@ import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.
  * @author Zafar Khaja <zafarkhaja@gmail.com>
  * @since 0.7.0
  */
-class Equal implements Expression {
+class Equal implements CompilableExpression, BatchExpression {
 
     /**
      * The parsed version, the right-hand operand of the "equal" operator.
@@ -60,4 +60,26 @@ class Equal implements Expression {
     public boolean interpret(Version version) {
         return version.equals(parsedVersion);
     }
+
+    /**
+     * Compiles this expression into the single version of this expression.
+     *
+     * @return the set of versions satisfying this expression
+     */
+    @Override
+    public IntervalSet compile() {
+        return IntervalSet.singleton(parsedVersion);
+    }
+
+    /**
+     * Selects the candidates of the batch which are equal to the parsed version.
+     *
+     * @param batch      the versions to interpret against
+     * @param candidates the mask of the versions to interpret against
+     * @return the mask of the selected versions
+     */
+    @Override
+    public long[] interpretAll(VersionBatch batch, long[] candidates) {
+        return batch.compare(parsedVersion, VersionBatch.EQUAL, candidates);
+    }
 }
@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+/**
+ * An index answering which of many expressions a version satisfies.
+ *
+ * The expressions are compiled into interval sets. Their bounds split the
+ * versions into elementary ranges, each bound on its own and the open gaps
+ * between them, which are the leaves of a segment tree. Each interval is
+ * stored in the logarithmically many nodes covering its leaves, so a query
+ * walks from one leaf up to the root and reports every matching expression
+ * once, taking {@code O(log N + k)} time for {@code N} intervals and
+ * {@code k} matches. Expressions which cannot be compiled are interpreted
+ * on every query.
+ *
+ * The index is immutable and safe for concurrent use.
+ */
+public final class ExpressionIndex {
+
+    /**
+     * The indexed expressions.
+     */
+    private final List<Expression> expressions;
+
+    /**
+     * The distinct interval bounds in ascending order.
+     */
+    private final Version[] bounds;
+
+    /**
+     * The number of leaves of the segment tree, one per elementary range.
+     */
+    private final int leaves;
+
+    /**
+     * The offsets of the expression indexes of each tree node into
+     * {@code nodeExpressions}, with one extra offset for the end.
+     */
+    private final int[] nodeOffsets;
+
+    /**
+     * The expression indexes stored in the tree nodes.
+     */
+    private final int[] nodeExpressions;
+
+    /**
+     * The indexes of the expressions which cannot be compiled.
+     */
+    private final int[] uncompiled;
+
+    /**
+     * Constructs an {@code ExpressionIndex} instance.
+     *
+     * @param expressions     the indexed expressions
+     * @param bounds          the distinct interval bounds in ascending order
+     * @param nodeOffsets     the offsets of the expression indexes of each node
+     * @param nodeExpressions the expression indexes stored in the nodes
+     * @param uncompiled      the indexes of the expressions which cannot be compiled
+     */
+    private ExpressionIndex(List<Expression> expressions, Version[] bounds, int[] nodeOffsets,
+            int[] nodeExpressions, int[] uncompiled) {
+        this.expressions = expressions;
+        this.bounds = bounds;
+        this.leaves = 2 * bounds.length + 1;
+        this.nodeOffsets = nodeOffsets;
+        this.nodeExpressions = nodeExpressions;
+        this.uncompiled = uncompiled;
+    }
+
+    /**
+     * Creates an index of the specified expressions.
+     *
+     * @param expressions the expressions to index
+     * @return a new index of the expressions
+     */
+    public static ExpressionIndex of(List<? extends Expression> expressions) {
+        List<Expression> list = Collections.unmodifiableList(new ArrayList<Expression>(expressions));
+        IntervalSet[] sets = new IntervalSet[list.size()];
+        int[] uncompiled = new int[sets.length];
+        int uncompiledCount = 0;
+        List<Version> allBounds = new ArrayList<Version>();
+        for (int i = 0; i < sets.length; i++) {
+            try {
+                sets[i] = IntervalSet.compile(list.get(i));
+            } catch (IllegalArgumentException e) {
+                uncompiled[uncompiledCount++] = i;
+                continue;
+            }
+            for (int k = 0; k < sets[i].size(); k++) {
+                if (sets[i].getLower(k) != null) {
+                    allBounds.add(sets[i].getLower(k));
+                }
+                if (sets[i].getUpper(k) != null) {
+                    allBounds.add(sets[i].getUpper(k));
+                }
+            }
+        }
+        Version[] bounds = distinctSorted(allBounds);
+        int leaves = 2 * bounds.length + 1;
+
+        int[] offsets = new int[2 * leaves + 1];
+        for (int i = 0; i < sets.length; i++) {
+            for (int k = 0; sets[i] != null && k < sets[i].size(); k++) {
+                cover(sets[i], k, bounds, leaves, offsets, null, i);
+            }
+        }
+        int total = 0;
+        for (int node = 0; node < offsets.length; node++) {
+            int count = offsets[node];
+            offsets[node] = total;
+            total += count;
+        }
+        int[] nodeExpressions = new int[total];
+        int[] cursors = Arrays.copyOf(offsets, offsets.length);
+        for (int i = 0; i < sets.length; i++) {
+            for (int k = 0; sets[i] != null && k < sets[i].size(); k++) {
+                cover(sets[i], k, bounds, leaves, cursors, nodeExpressions, i);
+            }
+        }
+        return new ExpressionIndex(list, bounds, offsets, nodeExpressions,
+            Arrays.copyOf(uncompiled, uncompiledCount));
+    }
+
+    /**
+     * Returns the number of indexed expressions.
+     *
+     * @return the number of expressions
+     */
+    public int size() {
+        return expressions.size();
+    }
+
+    /**
+     * Returns the indexed expression at the specified position.
+     *
+     * @param index the position of the expression
+     * @return the expression
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Expression get(int index) {
+        return expressions.get(index);
+    }
+
+    /**
+     * Finds the expressions satisfied by the specified version.
+     *
+     * @param version the version to check
+     * @return the positions of the satisfied expressions in ascending order
+     */
+    public int[] matching(Version version) {
+        int[] result = new int[8];
+        int count = 0;
+        for (int node = leafOf(version) + leaves; node > 0; node >>>= 1) {
+            int end = nodeOffsets[node + 1];
+            for (int i = nodeOffsets[node]; i < end; i++) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = nodeExpressions[i];
+            }
+        }
+        for (int index : uncompiled) {
+            if (expressions.get(index).interpret(version)) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = index;
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Finds the expressions satisfied by the specified version.
+     *
+     * @param version the version to check
+     * @return the satisfied expressions in the order they were indexed
+     */
+    public List<Expression> matchingExpressions(Version version) {
+        int[] indexes = matching(version);
+        List<Expression> result = new ArrayList<Expression>(indexes.length);
+        for (int index : indexes) {
+            result.add(expressions.get(index));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the leaf of the elementary range containing the version.
+     *
+     * The leaf {@code 2i + 1} holds the bound {@code i} and the leaf
+     * {@code 2i} the gap below it.
+     *
+     * @param version the version to locate
+     * @return the leaf of the version
+     */
+    private int leafOf(Version version) {
+        int index = Arrays.binarySearch(bounds, version);
+        return (index >= 0) ? 2 * index + 1 : -2 * (index + 1);
+    }
+
+    /**
+     * Stores an interval in the tree nodes covering its leaves, or counts
+     * these nodes if no storage is given.
+     *
+     * @param set        the interval set holding the interval
+     * @param k          the index of the interval in the set
+     * @param bounds     the distinct interval bounds in ascending order
+     * @param leaves     the number of leaves
+     * @param cursors    the counts or the next free positions by node
+     * @param storage    the storage of the expression indexes or {@code null}
+     * @param expression the index of the expression
+     */
+    private static void cover(IntervalSet set, int k, Version[] bounds, int leaves, int[] cursors,
+            int[] storage, int expression) {
+        int from = 0;
+        if (set.getLower(k) != null) {
+            int index = Arrays.binarySearch(bounds, set.getLower(k));
+            from = set.isLowerInclusive(k) ? 2 * index + 1 : 2 * index + 2;
+        }
+        int to = leaves - 1;
+        if (set.getUpper(k) != null) {
+            int index = Arrays.binarySearch(bounds, set.getUpper(k));
+            to = set.isUpperInclusive(k) ? 2 * index + 1 : 2 * index;
+        }
+        for (int low = from + leaves, high = to + leaves + 1; low < high; low >>>= 1, high >>>= 1) {
+            if ((low & 1) == 1) {
+                store(cursors, storage, low++, expression);
+            }
+            if ((high & 1) == 1) {
+                store(cursors, storage, --high, expression);
+            }
+        }
+    }
+
+    /**
+     * Stores an expression index in a node, or counts it if no storage is given.
+     *
+     * @param cursors    the counts or the next free positions by node
+     * @param storage    the storage of the expression indexes or {@code null}
+     * @param node       the tree node
+     * @param expression the index of the expression
+     */
+    private static void store(int[] cursors, int[] storage, int node, int expression) {
+        if (storage == null) {
+            cursors[node]++;
+        } else {
+            storage[cursors[node]++] = expression;
+        }
+    }
+
+    /**
+     * Sorts versions and removes the duplicates.
+     *
+     * @param versions the versions to sort
+     * @return the distinct versions in ascending order
+     */
+    private static Version[] distinctSorted(List<Version> versions) {
+        Version[] sorted = versions.toArray(new Version[versions.size()]);
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[size - 1].compareTo(sorted[i]) != 0) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+}
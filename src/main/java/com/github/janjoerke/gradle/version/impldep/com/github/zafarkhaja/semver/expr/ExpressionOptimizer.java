@@ -0,0 +1,432 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+/**
+ * Rewrites expression trees into equivalent trees which are cheaper to interpret.
+ *
+ * Nested {@code And} and {@code Or} expressions are flattened into lists of
+ * operands. The operands built from this package are compiled and merged
+ * into one interval set, which folds {@code Not} over comparisons and drops
+ * the bounds subsumed by others, so that {@code ~1.2 & >=1.2.3 & <1.5}
+ * becomes {@code >=1.2.3 & <1.3}. The merged set is rewritten into the
+ * fewest comparisons, or kept as a set interpreted by binary search if it
+ * would take too many. It is evaluated first, followed by the other
+ * operands in the order of their estimated cost. {@code Not} is pushed into
+ * {@code And} and {@code Or} by De Morgan's laws, so that the compilable
+ * parts below it can be merged as well. {@code Constraints} are treated as
+ * the conjunction of their expressions, and compilable expressions which
+ * fail to compile are kept like the expressions not built from this package.
+ *
+ * The optimized expression is satisfied by the same versions as the
+ * original one, provided that the expressions not built from this
+ * package are free of side effects.
+ */
+public final class ExpressionOptimizer {
+
+    /**
+     * The estimated cost of interpreting an expression not built from this package.
+     */
+    private static final int FOREIGN_COST = 16;
+
+    /**
+     * The most comparisons an interval set is rewritten into.
+     */
+    private static final int MAX_COMPARISONS = 4;
+
+    /**
+     * Orders expressions by their estimated cost.
+     */
+    private static final Comparator<Expression> BY_COST = new Comparator<Expression>() {
+        @Override
+        public int compare(Expression a, Expression b) {
+            return cost(a) - cost(b);
+        }
+    };
+
+    /**
+     * Prevents instantiation.
+     */
+    private ExpressionOptimizer() {
+    }
+
+    /**
+     * Optimizes the expression tree.
+     *
+     * @param expr the expression to optimize
+     * @return an equivalent expression which is cheaper to interpret
+     */
+    public static Expression optimize(Expression expr) {
+        expr = unwrap(expr);
+        if (expr instanceof And || expr instanceof Constraints) {
+            List<Expression> operands = new ArrayList<Expression>();
+            collectAnd(expr, operands);
+            return and(operands);
+        } else if (expr instanceof Or) {
+            List<Expression> operands = new ArrayList<Expression>();
+            collectOr(expr, operands);
+            return or(operands);
+        } else if (expr instanceof Not) {
+            return not(((Not) expr).getOperand());
+        } else if (expr instanceof CompilableExpression || expr instanceof IntervalSet) {
+            IntervalSet set = tryCompile(expr);
+            return (set == null) ? expr : rewrite(set);
+        }
+        return expr;
+    }
+
+    /**
+     * Optimizes the conjunction of the operands.
+     *
+     * @param operands the flattened operands
+     * @return the optimized conjunction
+     */
+    private static Expression and(List<Expression> operands) {
+        IntervalSet intersection = IntervalSet.all();
+        List<Expression> others = new ArrayList<Expression>();
+        for (Expression operand : operands) {
+            List<Expression> parts = new ArrayList<Expression>();
+            collectAnd(optimize(operand), parts);
+            for (Expression part : parts) {
+                IntervalSet set = tryCompile(part);
+                if (set != null) {
+                    intersection = intersection.intersect(set);
+                } else {
+                    others.add(part);
+                }
+            }
+        }
+        if (intersection.isEmpty()) {
+            return intersection;
+        }
+        Collections.sort(others, BY_COST);
+        if (!intersection.isAll() || others.isEmpty()) {
+            others.add(0, rewrite(intersection));
+        }
+        Expression result = others.get(0);
+        for (int i = 1; i < others.size(); i++) {
+            result = new And(result, others.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Optimizes the disjunction of the operands.
+     *
+     * @param operands the flattened operands
+     * @return the optimized disjunction
+     */
+    private static Expression or(List<Expression> operands) {
+        IntervalSet union = IntervalSet.empty();
+        List<Expression> others = new ArrayList<Expression>();
+        for (Expression operand : operands) {
+            List<Expression> parts = new ArrayList<Expression>();
+            collectOr(optimize(operand), parts);
+            for (Expression part : parts) {
+                IntervalSet set = tryCompile(part);
+                if (set != null) {
+                    union = union.union(set);
+                } else {
+                    others.add(part);
+                }
+            }
+        }
+        if (union.isAll()) {
+            return union;
+        }
+        Collections.sort(others, BY_COST);
+        if (!union.isEmpty() || others.isEmpty()) {
+            others.add(0, rewrite(union));
+        }
+        Expression result = others.get(0);
+        for (int i = 1; i < others.size(); i++) {
+            result = new Or(result, others.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Optimizes the negation of the operand.
+     *
+     * @param operand the negated expression
+     * @return the optimized negation
+     */
+    private static Expression not(Expression operand) {
+        operand = unwrap(operand);
+        if (operand instanceof Not) {
+            return optimize(((Not) operand).getOperand());
+        } else if (operand instanceof And || operand instanceof Constraints) {
+            List<Expression> operands = new ArrayList<Expression>();
+            collectAnd(operand, operands);
+            return or(negateAll(operands));
+        } else if (operand instanceof Or) {
+            List<Expression> operands = new ArrayList<Expression>();
+            collectOr(operand, operands);
+            return and(negateAll(operands));
+        }
+        Expression optimized = optimize(operand);
+        IntervalSet set = tryCompile(optimized);
+        if (set != null) {
+            return rewrite(set.complement());
+        }
+        return new Not(optimized);
+    }
+
+    /**
+     * Wraps each of the expressions into a {@code Not} expression.
+     *
+     * @param operands the expressions to negate
+     * @return the negated expressions
+     */
+    private static List<Expression> negateAll(List<Expression> operands) {
+        List<Expression> negated = new ArrayList<Expression>(operands.size());
+        for (Expression operand : operands) {
+            negated.add(new Not(operand));
+        }
+        return negated;
+    }
+
+    /**
+     * Collects the operands of nested {@code And} expressions and
+     * {@code Constraints}.
+     *
+     * @param expr     the expression to flatten
+     * @param operands the list to add the operands to
+     */
+    private static void collectAnd(Expression expr, List<Expression> operands) {
+        expr = unwrap(expr);
+        if (expr instanceof And) {
+            collectAnd(((And) expr).getLeft(), operands);
+            collectAnd(((And) expr).getRight(), operands);
+        } else if (expr instanceof Constraints) {
+            for (Expression constraint : ((Constraints) expr).getExpressions()) {
+                collectAnd(constraint, operands);
+            }
+        } else {
+            operands.add(expr);
+        }
+    }
+
+    /**
+     * Collects the operands of nested {@code Or} expressions.
+     *
+     * @param expr     the expression to flatten
+     * @param operands the list to add the operands to
+     */
+    private static void collectOr(Expression expr, List<Expression> operands) {
+        expr = unwrap(expr);
+        if (expr instanceof Or) {
+            collectOr(((Or) expr).getLeft(), operands);
+            collectOr(((Or) expr).getRight(), operands);
+        } else {
+            operands.add(expr);
+        }
+    }
+
+    /**
+     * Returns the expression tree of a {@code CompositeExpression}.
+     *
+     * @param expr the expression to unwrap
+     * @return the expression tree or the expression itself
+     */
+    private static Expression unwrap(Expression expr) {
+        while (expr instanceof CompositeExpression) {
+            expr = ((CompositeExpression) expr).getTree();
+        }
+        return expr;
+    }
+
+    /**
+     * Compiles an expression unless it contains expressions which cannot be
+     * compiled.
+     *
+     * @param expr the expression to compile
+     * @return the set of versions satisfying the expression or {@code null}
+     *         if the expression cannot be compiled
+     */
+    private static IntervalSet tryCompile(Expression expr) {
+        if (!isCompilable(expr)) {
+            return null;
+        }
+        try {
+            return IntervalSet.compile(expr);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks if an expression is built of compilable expressions only.
+     *
+     * @param expr the expression
+     * @return {@code true} if the expression may be compiled
+     */
+    private static boolean isCompilable(Expression expr) {
+        if (expr instanceof And) {
+            return isCompilable(((And) expr).getLeft()) && isCompilable(((And) expr).getRight());
+        } else if (expr instanceof Or) {
+            return isCompilable(((Or) expr).getLeft()) && isCompilable(((Or) expr).getRight());
+        } else if (expr instanceof Not) {
+            return isCompilable(((Not) expr).getOperand());
+        }
+        return expr instanceof CompilableExpression || expr instanceof IntervalSet;
+    }
+
+    /**
+     * Rewrites an interval set into the fewest comparisons.
+     *
+     * The set is either rewritten interval by interval, a single version
+     * becoming an {@code Equal}, or, if the gaps between the intervals are
+     * single versions, into the bounds of the whole set and a
+     * {@code NotEqual} for each gap, whichever takes fewer comparisons. Sets
+     * which would take more than {@code MAX_COMPARISONS} comparisons stay
+     * sets, so that they are interpreted by a binary search, and so do the
+     * sets of all and of no versions.
+     *
+     * @param set the set to rewrite
+     * @return an expression satisfied by the versions of the set
+     */
+    private static Expression rewrite(IntervalSet set) {
+        if (set.isEmpty() || set.isAll()) {
+            return set;
+        }
+        int last = set.size() - 1;
+        int byIntervals = 0;
+        for (int k = 0; k <= last; k++) {
+            byIntervals += comparisons(set, k);
+        }
+        int byGaps = Integer.MAX_VALUE;
+        if (hasSingleVersionGaps(set)) {
+            byGaps = last + (set.getLower(0) == null ? 0 : 1) + (set.getUpper(last) == null ? 0 : 1);
+        }
+        if (Math.min(byIntervals, byGaps) > MAX_COMPARISONS) {
+            return set;
+        }
+        if (byGaps < byIntervals) {
+            IntervalSet hull = IntervalSet.interval(set.getLower(0), set.isLowerInclusive(0),
+                set.getUpper(last), set.isUpperInclusive(last));
+            Expression result = hull.isAll() ? null : rewrite(hull, 0);
+            for (int k = 0; k < last; k++) {
+                Expression gap = new NotEqual(set.getUpper(k));
+                result = (result == null) ? gap : new And(result, gap);
+            }
+            return result;
+        }
+        Expression result = rewrite(set, 0);
+        for (int k = 1; k <= last; k++) {
+            result = new Or(result, rewrite(set, k));
+        }
+        return result;
+    }
+
+    /**
+     * Checks if each gap between the intervals of a set is a single version.
+     *
+     * @param set the set to check
+     * @return {@code true} if the intervals only exclude single versions
+     */
+    private static boolean hasSingleVersionGaps(IntervalSet set) {
+        for (int k = 0; k < set.size() - 1; k++) {
+            if (set.isUpperInclusive(k) || set.isLowerInclusive(k + 1)
+                    || set.getUpper(k).compareTo(set.getLower(k + 1)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts the comparisons an interval of a set is rewritten into.
+     *
+     * @param set the set holding the interval
+     * @param k   the index of the interval
+     * @return the number of comparisons
+     */
+    private static int comparisons(IntervalSet set, int k) {
+        Version lower = set.getLower(k);
+        Version upper = set.getUpper(k);
+        if (lower != null && upper != null && lower.compareTo(upper) == 0) {
+            return 1;
+        }
+        return (lower == null ? 0 : 1) + (upper == null ? 0 : 1);
+    }
+
+    /**
+     * Rewrites an interval of a set into the fewest comparisons.
+     *
+     * @param set the set holding the interval
+     * @param k   the index of the interval
+     * @return an expression satisfied by the versions of the interval
+     */
+    private static Expression rewrite(IntervalSet set, int k) {
+        Version lower = set.getLower(k);
+        Version upper = set.getUpper(k);
+        if (lower != null && upper != null && lower.compareTo(upper) == 0) {
+            return new Equal(lower);
+        }
+        Expression lowerBound = null;
+        if (lower != null) {
+            lowerBound = set.isLowerInclusive(k) ? new GreaterOrEqual(lower) : new Greater(lower);
+        }
+        Expression upperBound = null;
+        if (upper != null) {
+            upperBound = set.isUpperInclusive(k) ? new LessOrEqual(upper) : new Less(upper);
+        }
+        if (lowerBound == null) {
+            return upperBound;
+        } else if (upperBound == null) {
+            return lowerBound;
+        }
+        return new And(lowerBound, upperBound);
+    }
+
+    /**
+     * Estimates the cost of interpreting an optimized expression,
+     * counting the comparisons.
+     *
+     * @param expr the expression
+     * @return the estimated cost
+     */
+    private static int cost(Expression expr) {
+        if (expr instanceof And) {
+            return cost(((And) expr).getLeft()) + cost(((And) expr).getRight());
+        } else if (expr instanceof Or) {
+            return cost(((Or) expr).getLeft()) + cost(((Or) expr).getRight());
+        } else if (expr instanceof Not) {
+            return cost(((Not) expr).getOperand());
+        } else if (expr instanceof IntervalSet) {
+            return 2 * (32 - Integer.numberOfLeadingZeros(((IntervalSet) expr).size()));
+        } else if (expr instanceof CompilableExpression && tryCompile(expr) != null) {
+            return 1;
+        }
+        return FOREIGN_COST;
+    }
+}
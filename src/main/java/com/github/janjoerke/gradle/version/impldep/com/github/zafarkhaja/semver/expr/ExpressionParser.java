@@ -44,33 +44,135 @@ import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.
 import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.Lexer.Token.Type.TILDE;
 import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.Lexer.Token.Type.WILDCARD;
 
-import java.util.EnumSet;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Parser;
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.Lexer.Token;
-import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.util.Stream;
-import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.util.UnexpectedElementException;
-import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.util.Stream.ElementType;
 
 /**
  * A parser for the SemVer Expressions.
  *
+ * The parser keeps no state between calls, so a single instance can be shared
+ * by concurrent threads. It decides between the alternatives of the grammar
+ * by looking at a bounded number of tokens ahead, so the parsing time grows
+ * linearly with the length of the expression.
+ *
  * @author Zafar Khaja <zafarkhaja@gmail.com>
  * @since 0.7.0
  */
 public class ExpressionParser implements Parser<Expression> {
 
     /**
-     * The lexer instance used for tokenization of the input string.
+     * The maximum number of tokens looked ahead to find the end of a version,
+     * enough for a four part version followed by a dot.
      */
-    private final Lexer lexer;
+    private static final int MAX_VERSION_LENGTH = 8;
+
+    /**
+     * The number of version tokens from which on a version is no longer
+     * considered a partial version.
+     */
+    private static final int MIN_FULL_VERSION_LENGTH = 5;
+
+    /**
+     * A cursor over the tokens of the input string.
+     */
+    private static final class Cursor {
+
+        /**
+         * The tokens of the input string.
+         */
+        private final TokenBuffer tokens;
+
+        /**
+         * The index of the next token.
+         */
+        private int offset;
+
+        /**
+         * Constructs a {@code Cursor} instance positioned
+         * at the first of the specified tokens.
+         *
+         * @param tokens the tokens of the input string
+         */
+        Cursor(TokenBuffer tokens) {
+            this.tokens = tokens;
+        }
+
+        /**
+         * Returns the type of the token at the specified position ahead.
+         *
+         * Positions beyond the end of the input yield the {@code EOI} type.
+         *
+         * @param position the position of the token, starting at 1
+         * @return the type of the token at the position
+         */
+        Token.Type lookahead(int position) {
+            return tokens.type(indexOf(position));
+        }
+
+        /**
+         * Checks if the next token is of the specified type.
+         *
+         * @param type the expected type
+         * @return {@code true} if the next token is of the type
+         *         or {@code false} otherwise
+         */
+        boolean positiveLookahead(Token.Type type) {
+            return lookahead(1) == type;
+        }
+
+        /**
+         * Moves the cursor to the next token.
+         */
+        void consume() {
+            offset++;
+        }
+
+        /**
+         * Consumes the next token if it is of one of the expected types.
+         *
+         * @param expected the expected types of the next token
+         * @return the index of the consumed token
+         * @throws UnexpectedTokenException when encounters an unexpected token type
+         */
+        int consume(Token.Type... expected) {
+            Token.Type type = lookahead(1);
+            for (Token.Type candidate : expected) {
+                if (candidate == type) {
+                    return offset++;
+                }
+            }
+            throw new UnexpectedTokenException(tokens.token(indexOf(1)), expected);
+        }
+
+        /**
+         * Consumes the next numeric token and returns its value.
+         *
+         * @return the integer value of the numeric token
+         * @throws UnexpectedTokenException when the next token is not numeric
+         */
+        int consumeNumeric() {
+            return tokens.intValue(consume(NUMERIC));
+        }
+
+        /**
+         * Returns the index of the token at the specified position ahead.
+         *
+         * @param position the position of the token, starting at 1
+         * @return the index of the token, at most the index of the last token
+         */
+        private int indexOf(int position) {
+            return Math.min(offset + position - 1, tokens.size() - 1);
+        }
+    }
 
     /**
-     * The stream of tokens produced by the lexer.
+     * The lexer instance used for tokenization of the input string.
      */
-    private Stream<Token> tokens;
+    private final Lexer lexer;
 
     /**
      * Constructs a {@code ExpressionParser} instance with the corresponding lexer.
@@ -102,9 +204,9 @@ public class ExpressionParser implements Parser<Expression> {
      */
     @Override
     public Expression parse(String input) {
-        tokens = lexer.tokenize(input);
-        Expression expr = parseSemVerExpression();
-        consumeNextToken(EOI);
+        Cursor tokens = new Cursor(lexer.scan(input));
+        Expression expr = parseSemVerExpression(tokens);
+        tokens.consume(EOI);
         return expr;
     }
 
@@ -113,55 +215,94 @@ public class ExpressionParser implements Parser<Expression> {
      *
      * <pre>
      * {@literal
-     * <semver-expr> ::= "(" <semver-expr> ")"
-     *                 | "!" "(" <semver-expr> ")"
-     *                 | <semver-expr> <more-expr>
-     *                 | <range>
+     * <semver-expr> ::= <term> <more-expr>
+     *
+     * <more-expr> ::= <boolean-op> <term> <more-expr> | epsilon
      * }
      * </pre>
      *
+     * The boolean operators have the same precedence and are right-associative,
+     * so {@code a & b | c} means {@code a & (b | c)}. The terms are collected
+     * iteratively and every run of the same operator is combined into a balanced
+     * tree, which keeps the depth of the AST logarithmic in the number of terms.
+     *
+     * @param tokens the stream of tokens to parse
      * @return the expression AST
      */
-    private CompositeExpression parseSemVerExpression() {
-        CompositeExpression expr;
-        if (tokens.positiveLookahead(NOT)) {
+    private CompositeExpression parseSemVerExpression(Cursor tokens) {
+        List<CompositeExpression> terms = new ArrayList<CompositeExpression>();
+        List<Token.Type> operators = new ArrayList<Token.Type>();
+        terms.add(parseTerm(tokens));
+        while (tokens.positiveLookahead(AND) || tokens.positiveLookahead(OR)) {
+            operators.add(tokens.lookahead(1));
             tokens.consume();
-            consumeNextToken(LEFT_PAREN);
-            expr = not(parseSemVerExpression());
-            consumeNextToken(RIGHT_PAREN);
-        } else if (tokens.positiveLookahead(LEFT_PAREN)) {
-            consumeNextToken(LEFT_PAREN);
-            expr = parseSemVerExpression();
-            consumeNextToken(RIGHT_PAREN);
-        } else {
-            expr = parseRange();
+            terms.add(parseTerm(tokens));
+        }
+        CompositeExpression expr = terms.get(terms.size() - 1);
+        int end = operators.size();
+        while (end > 0) {
+            Token.Type operator = operators.get(end - 1);
+            int start = end - 1;
+            while (start > 0 && operators.get(start - 1) == operator) {
+                start--;
+            }
+            terms.set(end, expr);
+            expr = combine(terms, start, end + 1, operator);
+            end = start;
         }
-        return parseMoreExpressions(expr);
+        return expr;
     }
 
     /**
-     * Parses the {@literal <more-expr>} non-terminal.
+     * Parses the {@literal <term>} non-terminal.
      *
      * <pre>
      * {@literal
-     * <more-expr> ::= <boolean-op> <semver-expr> | epsilon
+     * <term> ::= "(" <semver-expr> ")"
+     *          | "!" "(" <semver-expr> ")"
+     *          | <range>
      * }
      * </pre>
      *
-     * @param expr the left-hand expression of the logical operators
+     * @param tokens the stream of tokens to parse
      * @return the expression AST
      */
-    private CompositeExpression parseMoreExpressions(CompositeExpression expr) {
-        if (tokens.positiveLookahead(AND)) {
-            tokens.consume();
-            expr = expr.and(parseSemVerExpression());
-        } else if (tokens.positiveLookahead(OR)) {
+    private CompositeExpression parseTerm(Cursor tokens) {
+        CompositeExpression expr;
+        if (tokens.positiveLookahead(NOT)) {
             tokens.consume();
-            expr = expr.or(parseSemVerExpression());
+            tokens.consume(LEFT_PAREN);
+            expr = not(parseSemVerExpression(tokens));
+            tokens.consume(RIGHT_PAREN);
+        } else if (tokens.positiveLookahead(LEFT_PAREN)) {
+            tokens.consume(LEFT_PAREN);
+            expr = parseSemVerExpression(tokens);
+            tokens.consume(RIGHT_PAREN);
+        } else {
+            expr = parseRange(tokens);
         }
         return expr;
     }
 
+    /**
+     * Combines a range of terms with the logical operator into a balanced tree.
+     *
+     * @param terms    the list of terms
+     * @param from     the index of the first term, inclusive
+     * @param to       the index of the last term, exclusive
+     * @param operator the {@code AND} or {@code OR} operator
+     * @return the expression AST
+     */
+    private CompositeExpression combine(List<CompositeExpression> terms, int from, int to, Token.Type operator) {
+        if (to - from == 1) {
+            return terms.get(from);
+        }
+        int middle = (from + to) >>> 1;
+        CompositeExpression left = combine(terms, from, middle, operator);
+        CompositeExpression right = combine(terms, middle, to, operator);
+        return operator == AND ? left.and(right) : left.or(right);
+    }
+
     /**
      * Parses the {@literal <range>} non-terminal.
      *
@@ -176,21 +317,25 @@ public class ExpressionParser implements Parser<Expression> {
      * }
      * </pre>
      *
+     * @param tokens the stream of tokens to parse
      * @return the expression AST
      */
-    private CompositeExpression parseRange() {
+    private CompositeExpression parseRange(Cursor tokens) {
         if (tokens.positiveLookahead(TILDE)) {
-            return parseTildeRange();
+            return parseTildeRange(tokens);
         } else if (tokens.positiveLookahead(CARET)) {
-            return parseCaretRange();
-        } else if (isWildcardRange()) {
-            return parseWildcardRange();
-        } else if (isHyphenRange()) {
-            return parseHyphenRange();
-        } else if (isPartialVersionRange()) {
-            return parsePartialVersionRange();
+            return parseCaretRange(tokens);
+        }
+        int length = versionLength(tokens);
+        Token.Type follower = tokens.lookahead(length + 1);
+        if (follower == WILDCARD) {
+            return parseWildcardRange(tokens);
+        } else if (follower == HYPHEN) {
+            return parseHyphenRange(tokens);
+        } else if (tokens.positiveLookahead(NUMERIC) && length < MIN_FULL_VERSION_LENGTH) {
+            return parsePartialVersionRange(tokens);
         }
-        return parseComparisonRange();
+        return parseComparisonRange(tokens);
     }
 
     /**
@@ -202,38 +347,38 @@ public class ExpressionParser implements Parser<Expression> {
      * }
      * </pre>
      *
+     * @param tokens the stream of tokens to parse
      * @return the expression AST
      */
-    private CompositeExpression parseComparisonRange() {
-        Token token = tokens.lookahead();
+    private CompositeExpression parseComparisonRange(Cursor tokens) {
         CompositeExpression expr;
-        switch (token.type) {
+        switch (tokens.lookahead(1)) {
         case EQUAL:
             tokens.consume();
-            expr = eq(parseVersion());
+            expr = eq(parseVersion(tokens));
             break;
         case NOT_EQUAL:
             tokens.consume();
-            expr = neq(parseVersion());
+            expr = neq(parseVersion(tokens));
             break;
         case GREATER:
             tokens.consume();
-            expr = gt(parseVersion());
+            expr = gt(parseVersion(tokens));
             break;
         case GREATER_EQUAL:
             tokens.consume();
-            expr = gte(parseVersion());
+            expr = gte(parseVersion(tokens));
             break;
         case LESS:
             tokens.consume();
-            expr = lt(parseVersion());
+            expr = lt(parseVersion(tokens));
             break;
         case LESS_EQUAL:
             tokens.consume();
-            expr = lte(parseVersion());
+            expr = lte(parseVersion(tokens));
             break;
         default:
-            expr = eq(parseVersion());
+            expr = eq(parseVersion(tokens));
         }
         return expr;
     }
@@ -247,26 +392,27 @@ public class ExpressionParser implements Parser<Expression> {
      * }
      * </pre>
      *
+     * @param tokens the stream of tokens to parse
      * @return the expression AST
      */
-    private CompositeExpression parseTildeRange() {
-        consumeNextToken(TILDE);
-        int major = intOf(consumeNextToken(NUMERIC).lexeme);
+    private CompositeExpression parseTildeRange(Cursor tokens) {
+        tokens.consume(TILDE);
+        int major = tokens.consumeNumeric();
         if (!tokens.positiveLookahead(DOT)) {
             return gte(versionFor(major)).and(lt(versionFor(major + 1)));
         }
-        consumeNextToken(DOT);
-        int minor = intOf(consumeNextToken(NUMERIC).lexeme);
+        tokens.consume(DOT);
+        int minor = tokens.consumeNumeric();
         if (!tokens.positiveLookahead(DOT)) {
             return gte(versionFor(major, minor)).and(lt(versionFor(major, minor + 1)));
         }
-        consumeNextToken(DOT);
-        int build = intOf(consumeNextToken(NUMERIC).lexeme);
+        tokens.consume(DOT);
+        int build = tokens.consumeNumeric();
         if (!tokens.positiveLookahead(DOT)) {
             return gte(versionFor(major, minor, build)).and(lt(versionFor(major, minor, build + 1)));
         }
-        consumeNextToken(DOT);
-        int subBuild = intOf(consumeNextToken(NUMERIC).lexeme);
+        tokens.consume(DOT);
+        int subBuild = tokens.consumeNumeric();
         return gte(versionFor(major, minor, build, subBuild)).and(lt(versionFor(major, minor, build, subBuild + 1)));
     }
 
@@ -279,30 +425,31 @@ public class ExpressionParser implements Parser<Expression> {
      * }
      * </pre>
      *
+     * @param tokens the stream of tokens to parse
      * @return the expression AST
      */
-    private CompositeExpression parseCaretRange() {
-        consumeNextToken(CARET);
-        int major = intOf(consumeNextToken(NUMERIC).lexeme);
+    private CompositeExpression parseCaretRange(Cursor tokens) {
+        tokens.consume(CARET);
+        int major = tokens.consumeNumeric();
         if (!tokens.positiveLookahead(DOT)) {
             return gte(versionFor(major)).and(lt(versionFor(major + 1)));
         }
-        consumeNextToken(DOT);
-        int minor = intOf(consumeNextToken(NUMERIC).lexeme);
+        tokens.consume(DOT);
+        int minor = tokens.consumeNumeric();
         if (!tokens.positiveLookahead(DOT)) {
             Version lower = versionFor(major, minor);
             Version upper = major > 0 ? lower.incrementMajorVersion() : lower.incrementMinorVersion();
             return gte(lower).and(lt(upper));
         }
-        consumeNextToken(DOT);
-        int build = intOf(consumeNextToken(NUMERIC).lexeme);
+        tokens.consume(DOT);
+        int build = tokens.consumeNumeric();
         if (!tokens.positiveLookahead(DOT)) {
             Version lower = versionFor(major, minor, build);
             Version upper = major > 0 ? lower.incrementMajorVersion() : lower.incrementMinorVersion();
             return gte(lower).and(lt(upper));
         }
-        consumeNextToken(DOT);
-        int subBuild = intOf(consumeNextToken(NUMERIC).lexeme);
+        tokens.consume(DOT);
+        int subBuild = tokens.consumeNumeric();
         Version version = versionFor(major, minor, build, subBuild);
         CompositeExpression gte = gte(version);
         if (major > 0) {
@@ -317,17 +464,6 @@ public class ExpressionParser implements Parser<Expression> {
         return eq(version);
     }
 
-    /**
-     * Determines if the following version terminals are part of the
-     * {@literal <wildcard-range>} non-terminal.
-     *
-     * @return {@code true} if the following version terminals are part of the
-     *         {@literal <wildcard-range>} non-terminal or {@code false} otherwise
-     */
-    private boolean isWildcardRange() {
-        return isVersionFollowedBy(WILDCARD);
-    }
-
     /**
      * Parses the {@literal <wildcard-range>} non-terminal.
      *
@@ -341,45 +477,35 @@ public class ExpressionParser implements Parser<Expression> {
      * }
      * </pre>
      *
+     * @param tokens the stream of tokens to parse
      * @return the expression AST
      */
-    private CompositeExpression parseWildcardRange() {
+    private CompositeExpression parseWildcardRange(Cursor tokens) {
         if (tokens.positiveLookahead(WILDCARD)) {
             tokens.consume();
             return gte(versionFor(0, 0, 0, 0));
         }
 
-        int major = intOf(consumeNextToken(NUMERIC).lexeme);
-        consumeNextToken(DOT);
+        int major = tokens.consumeNumeric();
+        tokens.consume(DOT);
         if (tokens.positiveLookahead(WILDCARD)) {
             tokens.consume();
             return gte(versionFor(major)).and(lt(versionFor(major + 1)));
         }
 
-        int minor = intOf(consumeNextToken(NUMERIC).lexeme);
-        consumeNextToken(DOT);
+        int minor = tokens.consumeNumeric();
+        tokens.consume(DOT);
         if (tokens.positiveLookahead(WILDCARD)) {
             tokens.consume();
             return gte(versionFor(major, minor)).and(lt(versionFor(major, minor + 1)));
         }
 
-        int build = intOf(consumeNextToken(NUMERIC).lexeme);
-        consumeNextToken(DOT);
-        consumeNextToken(WILDCARD);
+        int build = tokens.consumeNumeric();
+        tokens.consume(DOT);
+        tokens.consume(WILDCARD);
         return gte(versionFor(major, minor, build)).and(lt(versionFor(major, minor, build + 1)));
     }
 
-    /**
-     * Determines if the following version terminals are part of the
-     * {@literal <hyphen-range>} non-terminal.
-     *
-     * @return {@code true} if the following version terminals are part of the
-     *         {@literal <hyphen-range>} non-terminal or {@code false} otherwise
-     */
-    private boolean isHyphenRange() {
-        return isVersionFollowedBy(HYPHEN);
-    }
-
     /**
      * Parses the {@literal <hyphen-range>} non-terminal.
      *
@@ -389,28 +515,13 @@ public class ExpressionParser implements Parser<Expression> {
      * }
      * </pre>
      *
+     * @param tokens the stream of tokens to parse
      * @return the expression AST
      */
-    private CompositeExpression parseHyphenRange() {
-        CompositeExpression gte = gte(parseVersion());
-        consumeNextToken(HYPHEN);
-        return gte.and(lte(parseVersion()));
-    }
-
-    /**
-     * Determines if the following version terminals are part of the
-     * {@literal <partial-version-range>} non-terminal.
-     *
-     * @return {@code true} if the following version terminals are part of the
-     *         {@literal <partial-version-range>} non-terminal or {@code false}
-     *         otherwise
-     */
-    private boolean isPartialVersionRange() {
-        if (!tokens.positiveLookahead(NUMERIC)) {
-            return false;
-        }
-        EnumSet<Token.Type> expected = EnumSet.complementOf(EnumSet.of(NUMERIC, DOT));
-        return tokens.positiveLookaheadUntil(5, expected.toArray(new Token.Type[expected.size()]));
+    private CompositeExpression parseHyphenRange(Cursor tokens) {
+        CompositeExpression gte = gte(parseVersion(tokens));
+        tokens.consume(HYPHEN);
+        return gte.and(lte(parseVersion(tokens)));
     }
 
     /**
@@ -422,20 +533,21 @@ public class ExpressionParser implements Parser<Expression> {
      * }
      * </pre>
      *
+     * @param tokens the stream of tokens to parse
      * @return the expression AST
      */
-    private CompositeExpression parsePartialVersionRange() {
-        int major = intOf(consumeNextToken(NUMERIC).lexeme);
+    private CompositeExpression parsePartialVersionRange(Cursor tokens) {
+        int major = tokens.consumeNumeric();
         if (!tokens.positiveLookahead(DOT)) {
             return gte(versionFor(major)).and(lt(versionFor(major + 1)));
         }
-        consumeNextToken(DOT);
-        int minor = intOf(consumeNextToken(NUMERIC).lexeme);
+        tokens.consume(DOT);
+        int minor = tokens.consumeNumeric();
         if (!tokens.positiveLookahead(DOT)) {
             return gte(versionFor(major, minor)).and(lt(versionFor(major, minor + 1)));
         }
-        consumeNextToken(DOT);
-        int build = intOf(consumeNextToken(NUMERIC).lexeme);
+        tokens.consume(DOT);
+        int build = tokens.consumeNumeric();
         return gte(versionFor(major, minor, build)).and(lt(versionFor(major, minor, build + 1)));
     }
 
@@ -450,49 +562,49 @@ public class ExpressionParser implements Parser<Expression> {
      * }
      * </pre>
      *
+     * @param tokens the stream of tokens to parse
      * @return the parsed version
      */
-    private Version parseVersion() {
-        int major = intOf(consumeNextToken(NUMERIC).lexeme);
+    private Version parseVersion(Cursor tokens) {
+        int major = tokens.consumeNumeric();
         int minor = 0;
         if (tokens.positiveLookahead(DOT)) {
             tokens.consume();
-            minor = intOf(consumeNextToken(NUMERIC).lexeme);
+            minor = tokens.consumeNumeric();
         }
         int build = 0;
         if (tokens.positiveLookahead(DOT)) {
             tokens.consume();
-            build = intOf(consumeNextToken(NUMERIC).lexeme);
+            build = tokens.consumeNumeric();
         }
         int subBuild = 0;
         if (tokens.positiveLookahead(DOT)) {
             tokens.consume();
-            subBuild = intOf(consumeNextToken(NUMERIC).lexeme);
+            subBuild = tokens.consumeNumeric();
         }
         return versionFor(major, minor, build, subBuild);
     }
 
     /**
-     * Determines if the version terminals are followed by the specified token type.
+     * Counts the version terminals at the beginning of the remaining tokens.
      *
-     * This method is essentially a {@code lookahead(k)} method which allows to
-     * solve the grammar's ambiguities.
+     * This method is essentially a bounded {@code lookahead(k)} which allows
+     * to solve the grammar's ambiguities without scanning the rest of the input.
      *
-     * @param type the token type to check
-     * @return {@code true} if the version terminals are followed by the specified
-     *         token type or {@code false} otherwise
+     * @param tokens the stream of tokens to parse
+     * @return the number of leading {@code NUMERIC} and {@code DOT} tokens,
+     *         at most {@code MAX_VERSION_LENGTH + 1}
      */
-    private boolean isVersionFollowedBy(ElementType<Token> type) {
-        EnumSet<Token.Type> expected = EnumSet.of(NUMERIC, DOT);
-        Iterator<Token> it = tokens.iterator();
-        Token lookahead = null;
-        while (it.hasNext()) {
-            lookahead = it.next();
-            if (!expected.contains(lookahead.type)) {
+    private int versionLength(Cursor tokens) {
+        int length = 0;
+        while (length <= MAX_VERSION_LENGTH) {
+            Token.Type type = tokens.lookahead(length + 1);
+            if (type != NUMERIC && type != DOT) {
                 break;
             }
+            length++;
         }
-        return type.isMatchedBy(lookahead);
+        return length;
     }
 
     /**
@@ -544,29 +656,4 @@ public class ExpressionParser implements Parser<Expression> {
     private Version versionFor(int major, int minor, int build, int subBuild) {
         return Version.forIntegers(major, minor, build, subBuild);
     }
-
-    /**
-     * Returns a {@code int} representation of the specified string.
-     *
-     * @param value the string to convert into an integer
-     * @return the integer value of the specified string
-     */
-    private int intOf(String value) {
-        return Integer.parseInt(value);
-    }
-
-    /**
-     * Tries to consume the next token in the stream.
-     *
-     * @param expected the expected types of the next token
-     * @return the next token in the stream
-     * @throws UnexpectedTokenException when encounters an unexpected token type
-     */
-    private Token consumeNextToken(Token.Type... expected) {
-        try {
-            return tokens.consume(expected);
-        } catch (UnexpectedElementException e) {
-            throw new UnexpectedTokenException(e);
-        }
-    }
 }
@@ -32,7 +32,7 @@ import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.
  * @author Zafar Khaja <zafarkhaja@gmail.com>
  * @since 0.7.0
  */
-class Greater implements Expression {
+class Greater implements CompilableExpression, BatchExpression {
 
     /**
      * The parsed version, the right-hand
@@ -61,4 +61,26 @@ class Greater implements Expression {
     public boolean interpret(Version version) {
         return version.greaterThan(parsedVersion);
     }
+
+    /**
+     * Compiles this expression into the versions above the version of this expression.
+     *
+     * @return the set of versions satisfying this expression
+     */
+    @Override
+    public IntervalSet compile() {
+        return IntervalSet.interval(parsedVersion, false, null, false);
+    }
+
+    /**
+     * Selects the candidates of the batch which are greater than the parsed version.
+     *
+     * @param batch      the versions to interpret against
+     * @param candidates the mask of the versions to interpret against
+     * @return the mask of the selected versions
+     */
+    @Override
+    public long[] interpretAll(VersionBatch batch, long[] candidates) {
+        return batch.compare(parsedVersion, VersionBatch.HIGHER, candidates);
+    }
 }
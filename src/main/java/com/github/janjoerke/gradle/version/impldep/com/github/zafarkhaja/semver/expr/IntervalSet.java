@@ -0,0 +1,619 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import java.util.Arrays;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+/**
+ * A set of versions represented by sorted, disjoint intervals.
+ *
+ * Any expression built from the comparison, {@code And}, {@code Or} and
+ * {@code Not} expressions can be compiled into an {@code IntervalSet}. The
+ * intervals are kept in a canonical form: they are sorted, non-empty and
+ * neither overlap nor touch each other. Two sets therefore contain the same
+ * versions if and only if they are equal, treating the version order as dense.
+ * Interpreting the set takes a binary search over its intervals.
+ *
+ * Bounds compare versions by precedence, so build metadata is ignored like it
+ * is by the comparison expressions. A {@code null} lower or upper bound stands
+ * for an unbounded interval. Instances of this class are immutable.
+ */
+public final class IntervalSet implements BatchExpression {
+
+    /**
+     * The set containing no versions.
+     */
+    private static final IntervalSet EMPTY = new Builder().build();
+
+    /**
+     * The set containing all versions.
+     */
+    private static final IntervalSet ALL = new Builder().add(null, false, null, false).build();
+
+    /**
+     * The lower bounds of the intervals, {@code null} if unbounded.
+     */
+    private final Version[] lowers;
+
+    /**
+     * The flags telling if the lower bounds are inclusive.
+     */
+    private final boolean[] lowerInclusive;
+
+    /**
+     * The upper bounds of the intervals, {@code null} if unbounded.
+     */
+    private final Version[] uppers;
+
+    /**
+     * The flags telling if the upper bounds are inclusive.
+     */
+    private final boolean[] upperInclusive;
+
+    /**
+     * A builder of canonical interval sets.
+     *
+     * The intervals have to be added in ascending order of their lower bounds.
+     * Empty intervals are dropped and overlapping or touching ones are merged.
+     */
+    private static final class Builder {
+
+        /**
+         * The lower bounds of the intervals.
+         */
+        private Version[] lowers = new Version[4];
+
+        /**
+         * The flags telling if the lower bounds are inclusive.
+         */
+        private boolean[] lowerInclusive = new boolean[4];
+
+        /**
+         * The upper bounds of the intervals.
+         */
+        private Version[] uppers = new Version[4];
+
+        /**
+         * The flags telling if the upper bounds are inclusive.
+         */
+        private boolean[] upperInclusive = new boolean[4];
+
+        /**
+         * The number of intervals added so far.
+         */
+        private int size;
+
+        /**
+         * Adds an interval to the set.
+         *
+         * @param lower          the lower bound or {@code null} if unbounded
+         * @param lowerIncluded  whether the lower bound is inclusive
+         * @param upper          the upper bound or {@code null} if unbounded
+         * @param upperIncluded  whether the upper bound is inclusive
+         * @return this builder instance
+         */
+        Builder add(Version lower, boolean lowerIncluded, Version upper, boolean upperIncluded) {
+            if (isEmpty(lower, lowerIncluded, upper, upperIncluded)) {
+                return this;
+            }
+            int last = size - 1;
+            if (last >= 0 && touches(uppers[last], upperInclusive[last], lower, lowerIncluded)) {
+                if (compareUppers(upper, upperIncluded, uppers[last], upperInclusive[last]) > 0) {
+                    uppers[last] = upper;
+                    upperInclusive[last] = upperIncluded;
+                }
+                return this;
+            }
+            if (size == lowers.length) {
+                int capacity = size * 2;
+                lowers = Arrays.copyOf(lowers, capacity);
+                lowerInclusive = Arrays.copyOf(lowerInclusive, capacity);
+                uppers = Arrays.copyOf(uppers, capacity);
+                upperInclusive = Arrays.copyOf(upperInclusive, capacity);
+            }
+            lowers[size] = lower;
+            lowerInclusive[size] = lowerIncluded;
+            uppers[size] = upper;
+            upperInclusive[size] = upperIncluded;
+            size++;
+            return this;
+        }
+
+        /**
+         * Adds the interval at the specified index of the set.
+         *
+         * @param set   the set to take the interval from
+         * @param index the index of the interval
+         * @return this builder instance
+         */
+        Builder add(IntervalSet set, int index) {
+            return add(set.lowers[index], set.lowerInclusive[index], set.uppers[index], set.upperInclusive[index]);
+        }
+
+        /**
+         * Builds the interval set.
+         *
+         * @return the set of the added intervals
+         */
+        IntervalSet build() {
+            return new IntervalSet(
+                Arrays.copyOf(lowers, size),
+                Arrays.copyOf(lowerInclusive, size),
+                Arrays.copyOf(uppers, size),
+                Arrays.copyOf(upperInclusive, size)
+            );
+        }
+    }
+
+    /**
+     * Constructs a {@code IntervalSet} instance from canonical intervals.
+     *
+     * @param lowers         the lower bounds of the intervals
+     * @param lowerInclusive the flags telling if the lower bounds are inclusive
+     * @param uppers         the upper bounds of the intervals
+     * @param upperInclusive the flags telling if the upper bounds are inclusive
+     */
+    private IntervalSet(Version[] lowers, boolean[] lowerInclusive, Version[] uppers, boolean[] upperInclusive) {
+        this.lowers = lowers;
+        this.lowerInclusive = lowerInclusive;
+        this.uppers = uppers;
+        this.upperInclusive = upperInclusive;
+    }
+
+    /**
+     * Compiles the expression into an interval set.
+     *
+     * @param expr the expression to compile
+     * @return the set of versions satisfying the expression
+     * @throws IllegalArgumentException if the expression is not built from
+     *                                  the expressions of this package
+     */
+    public static IntervalSet compile(Expression expr) {
+        if (expr instanceof IntervalSet) {
+            return (IntervalSet) expr;
+        } else if (expr instanceof CompilableExpression) {
+            return ((CompilableExpression) expr).compile();
+        }
+        throw new IllegalArgumentException(
+            "Cannot compile expression of type " + (expr == null ? null : expr.getClass().getName())
+        );
+    }
+
+    /**
+     * Returns the set containing no versions.
+     *
+     * @return the empty set
+     */
+    public static IntervalSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the set containing all versions.
+     *
+     * @return the set of all versions
+     */
+    public static IntervalSet all() {
+        return ALL;
+    }
+
+    /**
+     * Returns the set containing exactly one version.
+     *
+     * @param version the version
+     * @return the set containing the version
+     */
+    public static IntervalSet singleton(Version version) {
+        return interval(version, true, version, true);
+    }
+
+    /**
+     * Returns the set containing the versions of a single interval.
+     *
+     * @param lower          the lower bound or {@code null} if unbounded
+     * @param lowerIncluded  whether the lower bound is inclusive
+     * @param upper          the upper bound or {@code null} if unbounded
+     * @param upperIncluded  whether the upper bound is inclusive
+     * @return the set of the versions in the interval
+     */
+    public static IntervalSet interval(Version lower, boolean lowerIncluded, Version upper, boolean upperIncluded) {
+        return new Builder().add(lower, lowerIncluded, upper, upperIncluded).build();
+    }
+
+    /**
+     * Checks if the version lies in one of the intervals.
+     *
+     * @param version the version to interpret against
+     * @return {@code true} if the set contains the version
+     *         or {@code false} otherwise
+     */
+    @Override
+    public boolean interpret(Version version) {
+        int low = 0;
+        int high = lowers.length - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (admitsFromBelow(middle, version)) {
+                candidate = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return candidate >= 0 && admitsFromAbove(candidate, version);
+    }
+
+    /**
+     * Selects the candidates of the batch which lie in one of the intervals.
+     *
+     * The intervals are visited in ascending order. The candidates below an
+     * interval are below all later ones, so each interval only compares the
+     * candidates above all earlier ones.
+     *
+     * @param batch      the versions to interpret against
+     * @param candidates the mask of the versions to interpret against
+     * @return the mask of the selected versions
+     */
+    @Override
+    public long[] interpretAll(VersionBatch batch, long[] candidates) {
+        long[] remaining = candidates;
+        long[] result = new long[candidates.length];
+        for (int k = 0; k < lowers.length; k++) {
+            if (lowers[k] != null) {
+                int accepted = lowerInclusive[k] ? VersionBatch.EQUAL | VersionBatch.HIGHER : VersionBatch.HIGHER;
+                remaining = batch.compare(lowers[k], accepted, remaining);
+            }
+            long[] selected = remaining;
+            if (uppers[k] != null) {
+                int accepted = upperInclusive[k] ? VersionBatch.LOWER | VersionBatch.EQUAL : VersionBatch.LOWER;
+                selected = batch.compare(uppers[k], accepted, remaining);
+            }
+            long[] above = new long[remaining.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] |= selected[i];
+                above[i] = remaining[i] & ~selected[i];
+            }
+            remaining = above;
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the set contains no versions.
+     *
+     * @return {@code true} if the set is empty or {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return lowers.length == 0;
+    }
+
+    /**
+     * Checks if the set contains all versions.
+     *
+     * @return {@code true} if the set contains all versions
+     *         or {@code false} otherwise
+     */
+    public boolean isAll() {
+        return lowers.length == 1 && lowers[0] == null && uppers[0] == null;
+    }
+
+    /**
+     * Returns the set of versions which are not in this set.
+     *
+     * @return the complement of this set
+     */
+    public IntervalSet complement() {
+        int size = lowers.length;
+        if (size == 0) {
+            return ALL;
+        }
+        Builder builder = new Builder();
+        if (lowers[0] != null) {
+            builder.add(null, false, lowers[0], !lowerInclusive[0]);
+        }
+        for (int i = 1; i < size; i++) {
+            builder.add(uppers[i - 1], !upperInclusive[i - 1], lowers[i], !lowerInclusive[i]);
+        }
+        if (uppers[size - 1] != null) {
+            builder.add(uppers[size - 1], !upperInclusive[size - 1], null, false);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the set of versions which are in this or the other set.
+     *
+     * @param other the other set
+     * @return the union of the sets
+     */
+    public IntervalSet union(IntervalSet other) {
+        Builder builder = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < lowers.length || j < other.lowers.length) {
+            if (j == other.lowers.length || i < lowers.length && compareLowers(
+                lowers[i], lowerInclusive[i], other.lowers[j], other.lowerInclusive[j]
+            ) <= 0) {
+                builder.add(this, i++);
+            } else {
+                builder.add(other, j++);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the set of versions which are in both this and the other set.
+     *
+     * @param other the other set
+     * @return the intersection of the sets
+     */
+    public IntervalSet intersect(IntervalSet other) {
+        Builder builder = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < lowers.length && j < other.lowers.length) {
+            boolean thisLower = compareLowers(
+                lowers[i], lowerInclusive[i], other.lowers[j], other.lowerInclusive[j]
+            ) >= 0;
+            int upper = compareUppers(uppers[i], upperInclusive[i], other.uppers[j], other.upperInclusive[j]);
+            builder.add(
+                thisLower ? lowers[i] : other.lowers[j],
+                thisLower ? lowerInclusive[i] : other.lowerInclusive[j],
+                upper <= 0 ? uppers[i] : other.uppers[j],
+                upper <= 0 ? upperInclusive[i] : other.upperInclusive[j]
+            );
+            if (upper <= 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of intervals in the set.
+     *
+     * @return the number of intervals
+     */
+    public int size() {
+        return lowers.length;
+    }
+
+    /**
+     * Returns the lower bound of the interval at the specified index.
+     *
+     * @param index the index of the interval
+     * @return the lower bound or {@code null} if the interval is unbounded
+     */
+    public Version getLower(int index) {
+        return lowers[index];
+    }
+
+    /**
+     * Checks if the lower bound of the interval at the specified index is inclusive.
+     *
+     * @param index the index of the interval
+     * @return {@code true} if the lower bound is inclusive
+     *         or {@code false} otherwise
+     */
+    public boolean isLowerInclusive(int index) {
+        return lowerInclusive[index];
+    }
+
+    /**
+     * Returns the upper bound of the interval at the specified index.
+     *
+     * @param index the index of the interval
+     * @return the upper bound or {@code null} if the interval is unbounded
+     */
+    public Version getUpper(int index) {
+        return uppers[index];
+    }
+
+    /**
+     * Checks if the upper bound of the interval at the specified index is inclusive.
+     *
+     * @param index the index of the interval
+     * @return {@code true} if the upper bound is inclusive
+     *         or {@code false} otherwise
+     */
+    public boolean isUpperInclusive(int index) {
+        return upperInclusive[index];
+    }
+
+    /**
+     * Checks if this set contains the same versions as the other object.
+     *
+     * @param other the object to compare with
+     * @return {@code true} if the sets are equal or {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof IntervalSet)) {
+            return false;
+        }
+        IntervalSet that = (IntervalSet) other;
+        return Arrays.equals(lowers, that.lowers)
+            && Arrays.equals(lowerInclusive, that.lowerInclusive)
+            && Arrays.equals(uppers, that.uppers)
+            && Arrays.equals(upperInclusive, that.upperInclusive);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 31 * hash + Arrays.hashCode(lowers);
+        hash = 31 * hash + Arrays.hashCode(lowerInclusive);
+        hash = 31 * hash + Arrays.hashCode(uppers);
+        hash = 31 * hash + Arrays.hashCode(upperInclusive);
+        return hash;
+    }
+
+    /**
+     * Returns the intervals in the mathematical notation,
+     * for example {@code {[1.0.0.0, 2.0.0.0), (3.0.0.0, +inf)}}.
+     *
+     * @return the string representation of this set
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < lowers.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(lowerInclusive[i] ? '[' : '(');
+            sb.append(lowers[i] == null ? "-inf" : lowers[i].toString());
+            sb.append(", ");
+            sb.append(uppers[i] == null ? "+inf" : uppers[i].toString());
+            sb.append(upperInclusive[i] ? ']' : ')');
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Checks if the lower bound of the interval at the specified index
+     * lets the version in.
+     *
+     * @param index   the index of the interval
+     * @param version the version to check
+     * @return {@code true} if the version is not below the interval
+     *         or {@code false} otherwise
+     */
+    private boolean admitsFromBelow(int index, Version version) {
+        if (lowers[index] == null) {
+            return true;
+        }
+        int result = lowers[index].compareTo(version);
+        return result < 0 || result == 0 && lowerInclusive[index];
+    }
+
+    /**
+     * Checks if the upper bound of the interval at the specified index
+     * lets the version in.
+     *
+     * @param index   the index of the interval
+     * @param version the version to check
+     * @return {@code true} if the version is not above the interval
+     *         or {@code false} otherwise
+     */
+    private boolean admitsFromAbove(int index, Version version) {
+        if (uppers[index] == null) {
+            return true;
+        }
+        int result = version.compareTo(uppers[index]);
+        return result < 0 || result == 0 && upperInclusive[index];
+    }
+
+    /**
+     * Checks if the interval with the specified bounds contains no versions.
+     *
+     * @param lower          the lower bound or {@code null} if unbounded
+     * @param lowerIncluded  whether the lower bound is inclusive
+     * @param upper          the upper bound or {@code null} if unbounded
+     * @param upperIncluded  whether the upper bound is inclusive
+     * @return {@code true} if the interval is empty or {@code false} otherwise
+     */
+    private static boolean isEmpty(Version lower, boolean lowerIncluded, Version upper, boolean upperIncluded) {
+        if (lower == null || upper == null) {
+            return false;
+        }
+        int result = lower.compareTo(upper);
+        return result > 0 || result == 0 && !(lowerIncluded && upperIncluded);
+    }
+
+    /**
+     * Checks if an interval ending at the upper bound overlaps or touches
+     * an interval starting at the lower bound.
+     *
+     * @param upper          the upper bound or {@code null} if unbounded
+     * @param upperIncluded  whether the upper bound is inclusive
+     * @param lower          the lower bound or {@code null} if unbounded
+     * @param lowerIncluded  whether the lower bound is inclusive
+     * @return {@code true} if the intervals can be merged
+     *         or {@code false} otherwise
+     */
+    private static boolean touches(Version upper, boolean upperIncluded, Version lower, boolean lowerIncluded) {
+        if (upper == null || lower == null) {
+            return true;
+        }
+        int result = upper.compareTo(lower);
+        return result > 0 || result == 0 && (upperIncluded || lowerIncluded);
+    }
+
+    /**
+     * Compares two lower bounds, an unbounded one being the lowest
+     * and an inclusive one being lower than an exclusive one.
+     *
+     * @param a         the first lower bound
+     * @param aIncluded whether the first lower bound is inclusive
+     * @param b         the second lower bound
+     * @param bIncluded whether the second lower bound is inclusive
+     * @return a negative integer, zero or a positive integer as the first
+     *         bound is lower than, equal to or higher than the second one
+     */
+    private static int compareLowers(Version a, boolean aIncluded, Version b, boolean bIncluded) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? -1 : 1);
+        }
+        int result = a.compareTo(b);
+        if (result == 0 && aIncluded != bIncluded) {
+            result = aIncluded ? -1 : 1;
+        }
+        return result;
+    }
+
+    /**
+     * Compares two upper bounds, an unbounded one being the highest
+     * and an inclusive one being higher than an exclusive one.
+     *
+     * @param a         the first upper bound
+     * @param aIncluded whether the first upper bound is inclusive
+     * @param b         the second upper bound
+     * @param bIncluded whether the second upper bound is inclusive
+     * @return a negative integer, zero or a positive integer as the first
+     *         bound is lower than, equal to or higher than the second one
+     */
+    private static int compareUppers(Version a, boolean aIncluded, Version b, boolean bIncluded) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? 1 : -1);
+        }
+        int result = a.compareTo(b);
+        if (result == 0 && aIncluded != bIncluded) {
+            result = aIncluded ? 1 : -1;
+        }
+        return result;
+    }
+}
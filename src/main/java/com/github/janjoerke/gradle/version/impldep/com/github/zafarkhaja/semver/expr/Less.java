@@ -32,7 +32,7 @@ import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.
  * @author Zafar Khaja <zafarkhaja@gmail.com>
  * @since 0.7.0
  */
-class Less implements Expression {
+class Less implements CompilableExpression, BatchExpression {
 
     /**
      * The parsed version, the right-hand
@@ -61,4 +61,26 @@ class Less implements Expression {
     public boolean interpret(Version version) {
         return version.lessThan(parsedVersion);
     }
+
+    /**
+     * Compiles this expression into the versions below the version of this expression.
+     *
+     * @return the set of versions satisfying this expression
+     */
+    @Override
+    public IntervalSet compile() {
+        return IntervalSet.interval(null, false, parsedVersion, false);
+    }
+
+    /**
+     * Selects the candidates of the batch which are less than the parsed version.
+     *
+     * @param batch      the versions to interpret against
+     * @param candidates the mask of the versions to interpret against
+     * @return the mask of the selected versions
+     */
+    @Override
+    public long[] interpretAll(VersionBatch batch, long[] candidates) {
+        return batch.compare(parsedVersion, VersionBatch.LOWER, candidates);
+    }
 }
@@ -32,7 +32,7 @@ import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.
  * @author Zafar Khaja <zafarkhaja@gmail.com>
  * @since 0.7.0
  */
-class LessOrEqual implements Expression {
+class LessOrEqual implements CompilableExpression, BatchExpression {
 
     /**
      * The parsed version, the right-hand operand
@@ -62,4 +62,26 @@ class LessOrEqual implements Expression {
     public boolean interpret(Version version) {
         return version.lessThanOrEqualTo(parsedVersion);
     }
+
+    /**
+     * Compiles this expression into the versions up to the version of this expression.
+     *
+     * @return the set of versions satisfying this expression
+     */
+    @Override
+    public IntervalSet compile() {
+        return IntervalSet.interval(null, false, parsedVersion, true);
+    }
+
+    /**
+     * Selects the candidates of the batch which are less than or equal to the parsed version.
+     *
+     * @param batch      the versions to interpret against
+     * @param candidates the mask of the versions to interpret against
+     * @return the mask of the selected versions
+     */
+    @Override
+    public long[] interpretAll(VersionBatch batch, long[] candidates) {
+        return batch.compare(parsedVersion, VersionBatch.LOWER | VersionBatch.EQUAL, candidates);
+    }
 }
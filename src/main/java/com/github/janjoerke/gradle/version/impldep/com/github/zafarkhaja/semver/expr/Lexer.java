@@ -24,16 +24,14 @@
  *******************************************************************************/
 package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.util.Stream;
 
 /**
  * A lexer for the SemVer Expressions.
  *
+ * The lexer scans the input in a single pass and records the tokens in a
+ * {@code TokenBuffer} without copying any lexemes.
+ *
  * @author Zafar Khaja <zafarkhaja@gmail.com>
  * @since 0.7.0
  */
@@ -70,19 +68,19 @@ class Lexer {
             EOI("?!");
 
             /**
-             * A pattern matching this type.
+             * The pattern describing the lexemes of this type.
              */
-            final Pattern pattern;
+            final String pattern;
 
             /**
              * Constructs a token type with a regular
              * expression for the pattern.
              *
-             * @param regexp the regular expression for the pattern
+             * @param regexp the regular expression describing the lexemes
              * @see #pattern
              */
             private Type(String regexp) {
-                pattern = Pattern.compile("^(" + regexp + ")");
+                pattern = "^(" + regexp + ")";
             }
 
             /**
@@ -196,31 +194,125 @@ class Lexer {
      * @throws LexerException when encounters an illegal character
      */
     Stream<Token> tokenize(String input) {
-        List<Token> tokens = new ArrayList<Token>();
-        int tokenPos = 0;
-        while (!input.isEmpty()) {
-            boolean matched = false;
-            for (Token.Type tokenType : Token.Type.values()) {
-                Matcher matcher = tokenType.pattern.matcher(input);
-                if (matcher.find()) {
-                    matched = true;
-                    input = matcher.replaceFirst("");
-                    if (tokenType != Token.Type.WHITESPACE) {
-                        tokens.add(new Token(
-                            tokenType,
-                            matcher.group(),
-                            tokenPos
-                        ));
-                    }
-                    tokenPos += matcher.end();
-                    break;
+        return scan(input).toStream();
+    }
+
+    /**
+     * Tokenizes the specified input string into a buffer.
+     *
+     * Whitespaces are skipped and the buffer always ends with
+     * an {@code EOI} token.
+     *
+     * @param input the input string to tokenize
+     * @return a buffer of tokens
+     * @throws LexerException when encounters an illegal character
+     */
+    TokenBuffer scan(String input) {
+        TokenBuffer tokens = new TokenBuffer(input);
+        int length = input.length();
+        int pos = 0;
+        while (pos < length) {
+            int start = pos;
+            char chr = input.charAt(pos++);
+            Token.Type type;
+            switch (chr) {
+            case '0':
+                type = Token.Type.NUMERIC;
+                break;
+            case '1': case '2': case '3': case '4': case '5':
+            case '6': case '7': case '8': case '9':
+                while (pos < length && isDigit(input.charAt(pos))) {
+                    pos++;
+                }
+                type = Token.Type.NUMERIC;
+                break;
+            case '.':
+                type = Token.Type.DOT;
+                break;
+            case '-':
+                type = Token.Type.HYPHEN;
+                break;
+            case '=':
+                type = Token.Type.EQUAL;
+                break;
+            case '!':
+                type = isFollowedByEqualSign(input, pos) ? Token.Type.NOT_EQUAL : Token.Type.NOT;
+                break;
+            case '>':
+                type = isFollowedByEqualSign(input, pos) ? Token.Type.GREATER_EQUAL : Token.Type.GREATER;
+                break;
+            case '<':
+                type = isFollowedByEqualSign(input, pos) ? Token.Type.LESS_EQUAL : Token.Type.LESS;
+                break;
+            case '~':
+                type = Token.Type.TILDE;
+                break;
+            case '*': case 'x': case 'X':
+                type = Token.Type.WILDCARD;
+                break;
+            case '^':
+                type = Token.Type.CARET;
+                break;
+            case '&':
+                type = Token.Type.AND;
+                break;
+            case '|':
+                type = Token.Type.OR;
+                break;
+            case '(':
+                type = Token.Type.LEFT_PAREN;
+                break;
+            case ')':
+                type = Token.Type.RIGHT_PAREN;
+                break;
+            default:
+                if (!isWhitespace(chr)) {
+                    throw new LexerException(input.substring(start));
                 }
+                while (pos < length && isWhitespace(input.charAt(pos))) {
+                    pos++;
+                }
+                continue;
             }
-            if (!matched) {
-                throw new LexerException(input);
+            if (type == Token.Type.NOT_EQUAL || type == Token.Type.GREATER_EQUAL || type == Token.Type.LESS_EQUAL) {
+                pos++;
             }
+            tokens.add(type, start, pos);
         }
-        tokens.add(new Token(Token.Type.EOI, null, tokenPos));
-        return new Stream<Token>(tokens.toArray(new Token[tokens.size()]));
+        tokens.add(Token.Type.EOI, pos, pos);
+        return tokens;
+    }
+
+    /**
+     * Checks if the character at the specified offset is an equal sign.
+     *
+     * @param input  the input string
+     * @param offset the offset of the character
+     * @return {@code true} if the character is an equal sign
+     *         or {@code false} otherwise
+     */
+    private static boolean isFollowedByEqualSign(String input, int offset) {
+        return offset < input.length() && input.charAt(offset) == '=';
+    }
+
+    /**
+     * Checks if the character is a decimal digit.
+     *
+     * @param chr the character to check
+     * @return {@code true} if the character is a digit or {@code false} otherwise
+     */
+    private static boolean isDigit(char chr) {
+        return chr >= '0' && chr <= '9';
+    }
+
+    /**
+     * Checks if the character is a whitespace as matched by {@code \s}.
+     *
+     * @param chr the character to check
+     * @return {@code true} if the character is a whitespace
+     *         or {@code false} otherwise
+     */
+    private static boolean isWhitespace(char chr) {
+        return chr == ' ' || chr == '\t' || chr == '\n' || chr == '\u000B' || chr == '\f' || chr == '\r';
     }
 }
@@ -32,7 +32,7 @@ import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.
  * @author Zafar Khaja <zafarkhaja@gmail.com>
  * @since 0.7.0
  */
-class Not implements Expression {
+class Not implements CompilableExpression, BatchExpression {
 
     /**
      * The expression to negate.
@@ -59,4 +59,39 @@ class Not implements Expression {
     public boolean interpret(Version version) {
         return !expr.interpret(version);
     }
+
+    /**
+     * Compiles this expression into the complement of the set of the operand.
+     *
+     * @return the set of versions satisfying this expression
+     */
+    @Override
+    public IntervalSet compile() {
+        return IntervalSet.compile(expr).complement();
+    }
+
+    /**
+     * Selects the candidates of the batch which do not satisfy the operand.
+     *
+     * @param batch      the versions to interpret against
+     * @param candidates the mask of the versions to interpret against
+     * @return the mask of the selected versions
+     */
+    @Override
+    public long[] interpretAll(VersionBatch batch, long[] candidates) {
+        long[] result = batch.interpret(expr, candidates);
+        for (int i = 0; i < candidates.length; i++) {
+            result[i] = candidates[i] & ~result[i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the expression to negate.
+     *
+     * @return the negated expression
+     */
+    Expression getOperand() {
+        return expr;
+    }
 }
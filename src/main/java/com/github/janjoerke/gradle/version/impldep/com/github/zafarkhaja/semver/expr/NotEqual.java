@@ -32,7 +32,7 @@ import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.
  * @author Zafar Khaja <zafarkhaja@gmail.com>
  * @since 0.7.0
  */
-class NotEqual implements Expression {
+class NotEqual implements CompilableExpression, BatchExpression {
 
     /**
      * The parsed version, the right-hand operand of the "not equal" operator.
@@ -60,4 +60,26 @@ class NotEqual implements Expression {
     public boolean interpret(Version version) {
         return !version.equals(parsedVersion);
     }
+
+    /**
+     * Compiles this expression into all versions but the version of this expression.
+     *
+     * @return the set of versions satisfying this expression
+     */
+    @Override
+    public IntervalSet compile() {
+        return IntervalSet.singleton(parsedVersion).complement();
+    }
+
+    /**
+     * Selects the candidates of the batch which are not equal to the parsed version.
+     *
+     * @param batch      the versions to interpret against
+     * @param candidates the mask of the versions to interpret against
+     * @return the mask of the selected versions
+     */
+    @Override
+    public long[] interpretAll(VersionBatch batch, long[] candidates) {
+        return batch.compare(parsedVersion, VersionBatch.LOWER | VersionBatch.HIGHER, candidates);
+    }
 }
@@ -32,7 +32,7 @@ import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.
  * @author Zafar Khaja <zafarkhaja@gmail.com>
  * @since 0.7.0
  */
-class Or implements Expression {
+class Or implements CompilableExpression, BatchExpression {
 
     /**
      * The left-hand operand of expression.
@@ -67,4 +67,56 @@ class Or implements Expression {
     public boolean interpret(Version version) {
         return left.interpret(version) || right.interpret(version);
     }
+
+    /**
+     * Compiles this expression into the union of the sets of both operands.
+     *
+     * @return the set of versions satisfying this expression
+     */
+    @Override
+    public IntervalSet compile() {
+        return IntervalSet.compile(left).union(IntervalSet.compile(right));
+    }
+
+    /**
+     * Selects the candidates of the batch which satisfy one of the operands.
+     *
+     * The right-hand operand is only evaluated for the candidates
+     * not satisfying the left-hand one.
+     *
+     * @param batch      the versions to interpret against
+     * @param candidates the mask of the versions to interpret against
+     * @return the mask of the selected versions
+     */
+    @Override
+    public long[] interpretAll(VersionBatch batch, long[] candidates) {
+        long[] result = batch.interpret(left, candidates);
+        long[] remaining = new long[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            remaining[i] = candidates[i] & ~result[i];
+        }
+        long[] rest = batch.interpret(right, remaining);
+        for (int i = 0; i < candidates.length; i++) {
+            result[i] |= rest[i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the left-hand operand of expression.
+     *
+     * @return the left-hand operand
+     */
+    Expression getLeft() {
+        return left;
+    }
+
+    /**
+     * Returns the right-hand operand of expression.
+     *
+     * @return the right-hand operand
+     */
+    Expression getRight() {
+        return right;
+    }
 }
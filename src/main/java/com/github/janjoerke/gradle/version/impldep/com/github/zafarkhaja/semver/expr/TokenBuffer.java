@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import java.util.Arrays;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.Lexer.Token;
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.util.Stream;
+
+/**
+ * A compact buffer of the tokens produced by the {@code Lexer}.
+ *
+ * The tokens are stored as parallel arrays of types and offsets into the
+ * input string, so that no lexeme is copied unless it is asked for.
+ *
+ * @see Lexer#scan(String)
+ */
+class TokenBuffer {
+
+    /**
+     * The token types by ordinal.
+     */
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    /**
+     * The initial capacity of the buffer.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The tokenized input string.
+     */
+    private final String input;
+
+    /**
+     * The ordinals of the token types.
+     */
+    private byte[] types;
+
+    /**
+     * The start offsets of the tokens, inclusive.
+     */
+    private int[] starts;
+
+    /**
+     * The end offsets of the tokens, exclusive.
+     */
+    private int[] ends;
+
+    /**
+     * The number of tokens in the buffer.
+     */
+    private int size;
+
+    /**
+     * Constructs an empty {@code TokenBuffer} instance for the input string.
+     *
+     * @param input the tokenized input string
+     */
+    TokenBuffer(String input) {
+        this.input = input;
+        int capacity = Math.max(INITIAL_CAPACITY, input.length() / 2 + 1);
+        types = new byte[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+    }
+
+    /**
+     * Appends a token to the buffer.
+     *
+     * @param type  the type of the token
+     * @param start the start offset of the token, inclusive
+     * @param end   the end offset of the token, exclusive
+     */
+    void add(Token.Type type, int start, int end) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    /**
+     * Returns the number of tokens in the buffer.
+     *
+     * @return the number of tokens
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the type of the token at the specified index.
+     *
+     * @param index the index of the token
+     * @return the type of the token
+     */
+    Token.Type type(int index) {
+        return TYPES[types[index]];
+    }
+
+    /**
+     * Returns the position of the token at the specified index.
+     *
+     * @param index the index of the token
+     * @return the offset of the token in the input string
+     */
+    int position(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Returns the lexeme of the token at the specified index.
+     *
+     * @param index the index of the token
+     * @return a copy of the lexeme
+     */
+    String lexeme(int index) {
+        return input.substring(starts[index], ends[index]);
+    }
+
+    /**
+     * Returns the integer value of the numeric token at the specified index
+     * without copying its lexeme.
+     *
+     * @param index the index of the numeric token
+     * @return the integer value of the token
+     * @throws NumberFormatException if the value does not fit into an integer
+     */
+    int intValue(int index) {
+        long value = 0;
+        for (int i = starts[index]; i < ends[index]; i++) {
+            value = value * 10 + (input.charAt(i) - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("For input string: \"" + lexeme(index) + "\"");
+            }
+        }
+        return (int) value;
+    }
+
+    /**
+     * Returns the token at the specified index as an object.
+     *
+     * @param index the index of the token
+     * @return a newly created token
+     */
+    Token token(int index) {
+        return new Token(type(index), lexeme(index), starts[index]);
+    }
+
+    /**
+     * Returns a stream of the tokens in this buffer.
+     *
+     * @return a stream of newly created tokens
+     */
+    Stream<Token> toStream() {
+        Token[] tokens = new Token[size];
+        for (int i = 0; i < size; i++) {
+            tokens[i] = token(i);
+        }
+        return new Stream<Token>(tokens);
+    }
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+/**
+ * A batch of versions which the expressions are interpreted against at once.
+ *
+ * The packed normal versions are extracted once for the whole batch, so that
+ * a comparison node compares primitive keys in a tight loop and falls back to
+ * {@code Version.compareTo} only for equal or unpacked keys. The versions are
+ * selected with bit masks of 64 versions per word. Each node only looks at the
+ * candidates which are still undecided, so the right-hand operand of an
+ * {@code And} is only evaluated for the versions satisfying the left-hand one.
+ */
+final class VersionBatch {
+
+    /**
+     * The comparison outcome of a version lower than the bound.
+     */
+    static final int LOWER = 1;
+
+    /**
+     * The comparison outcome of a version equal to the bound.
+     */
+    static final int EQUAL = 1 << 1;
+
+    /**
+     * The comparison outcome of a version higher than the bound.
+     */
+    static final int HIGHER = 1 << 2;
+
+    /**
+     * The key of the versions which have no packed normal version.
+     */
+    private static final long UNPACKED_KEY = Version.UNPACKED ^ Long.MIN_VALUE;
+
+    /**
+     * The versions of the batch.
+     */
+    private final Version[] versions;
+
+    /**
+     * The packed normal versions with the sign bit flipped,
+     * so that they order as signed numbers.
+     */
+    private final long[] keys;
+
+    /**
+     * Constructs a {@code VersionBatch} instance.
+     *
+     * @param versions the versions of the batch
+     */
+    VersionBatch(Version[] versions) {
+        this.versions = versions;
+        keys = new long[versions.length];
+        for (int i = 0; i < versions.length; i++) {
+            keys[i] = versions[i].getPackedNormalVersion() ^ Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Returns a mask selecting all versions of the batch.
+     *
+     * @return the mask of all versions
+     */
+    long[] all() {
+        long[] mask = new long[(versions.length + 63) >>> 6];
+        for (int i = 0; i < mask.length; i++) {
+            mask[i] = -1L;
+        }
+        if ((versions.length & 63) != 0) {
+            mask[mask.length - 1] = (1L << versions.length) - 1;
+        }
+        return mask;
+    }
+
+    /**
+     * Selects the candidates whose comparison with the bound
+     * has one of the accepted outcomes.
+     *
+     * @param bound      the version to compare with
+     * @param accepted   the accepted outcomes, a combination of
+     *                   {@code LOWER}, {@code EQUAL} and {@code HIGHER}
+     * @param candidates the mask of the versions to compare
+     * @return the mask of the selected versions
+     */
+    long[] compare(Version bound, int accepted, long[] candidates) {
+        long[] result = new long[candidates.length];
+        long boundKey = bound.getPackedNormalVersion() ^ Long.MIN_VALUE;
+        boolean boundPacked = boundKey != UNPACKED_KEY;
+        for (int word = 0; word < candidates.length; word++) {
+            long remaining = candidates[word];
+            long selected = 0;
+            while (remaining != 0) {
+                int bit = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                int i = (word << 6) | bit;
+                long key = keys[i];
+                int outcome;
+                if (boundPacked && key != boundKey && key != UNPACKED_KEY) {
+                    outcome = key < boundKey ? 0 : 2;
+                } else {
+                    int cmp = versions[i].compareTo(bound);
+                    outcome = cmp < 0 ? 0 : (cmp == 0 ? 1 : 2);
+                }
+                selected |= (long) ((accepted >>> outcome) & 1) << bit;
+            }
+            result[word] = selected;
+        }
+        return result;
+    }
+
+    /**
+     * Interprets the expression against the candidates of the batch.
+     *
+     * @param expr       the expression to interpret
+     * @param candidates the mask of the versions to interpret against
+     * @return the mask of the candidates satisfying the expression
+     */
+    long[] interpret(Expression expr, long[] candidates) {
+        while (expr instanceof CompositeExpression) {
+            expr = ((CompositeExpression) expr).getTree();
+        }
+        if (expr instanceof BatchExpression) {
+            return ((BatchExpression) expr).interpretAll(this, candidates);
+        }
+        long[] result = new long[candidates.length];
+        for (int word = 0; word < candidates.length; word++) {
+            long remaining = candidates[word];
+            while (remaining != 0) {
+                int bit = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                if (expr.interpret(versions[(word << 6) | bit])) {
+                    result[word] |= 1L << bit;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Interprets the expression against every version of the batch.
+     *
+     * @param expr the expression to interpret
+     * @return the indexes of the versions satisfying the expression
+     */
+    BitSet interpret(Expression expr) {
+        return BitSet.valueOf(interpret(expr, all()));
+    }
+
+    /**
+     * Returns the versions at the specified indexes.
+     *
+     * @param indexes the indexes of the versions
+     * @return the versions in the order of the batch
+     */
+    List<Version> select(BitSet indexes) {
+        List<Version> result = new ArrayList<Version>(indexes.cardinality());
+        for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+            result.add(versions[i]);
+        }
+        return result;
+    }
+}
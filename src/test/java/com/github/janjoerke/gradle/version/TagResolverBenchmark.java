@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+/**
+ * Measures the resolution of the version in generated repositories. It is not a test, run it with the test runtime
+ * classpath and git on the path:
+ *
+ * <pre>
+ * java com.github.janjoerke.gradle.version.TagResolverBenchmark &lt;directory&gt; [commits] [tags]
+ * </pre>
+ *
+ * The directory receives two linear histories of the given number of commits, 500000 by default. In the "near"
+ * repository the given number of tags, 50000 by default, is spread over the history with HEAD nine commits past the
+ * newest one. In the "deep" repository only the oldest commits are tagged. All tags are packed.
+ */
+public class TagResolverBenchmark {
+
+	private static final int RUNS = 8;
+
+	public static void main(String[] args) throws Exception {
+		Path directory = Paths.get(args[0]);
+		int commits = args.length > 1 ? Integer.parseInt(args[1]) : 500000;
+		int tags = args.length > 2 ? Integer.parseInt(args[2]) : 50000;
+		Path near = directory.resolve("near");
+		Path deep = directory.resolve("deep");
+		if (!Files.isDirectory(near)) {
+			createRepository(near, commits, tags, (commits - 9) / tags, commits - 9);
+		}
+		if (!Files.isDirectory(deep)) {
+			createRepository(deep, commits, tags, 1, tags);
+		}
+		measure("near", near, TagResolver.DEFAULT_MAX_COMMITS);
+		measure("deep", deep, TagResolver.DEFAULT_MAX_COMMITS);
+		measure("deep, unbounded", deep, Integer.MAX_VALUE);
+	}
+
+	private static void measure(String name, Path workTree, int maxCommits) throws IOException {
+		TagResolver resolver = new TagResolver(maxCommits);
+		long first = 0;
+		long best = Long.MAX_VALUE;
+		Optional<Version> version = null;
+		for (int i = 0; i < RUNS; i++) {
+			long start = System.nanoTime();
+			version = resolver.resolve(workTree);
+			long time = System.nanoTime() - start;
+			if (i == 0) {
+				first = time;
+			} else {
+				best = Math.min(best, time);
+			}
+		}
+		System.out.printf("%s: %s, first %.1f ms, best of %d %.1f ms%n", name,
+				version.map(Version::toString).orElse("stopped walk"), first / 1e6, RUNS - 1, best / 1e6);
+	}
+
+	// Every tagSpacing-th commit from the newest tagged one back is tagged, until the number of tags is reached.
+	private static void createRepository(Path workTree, int commits, int tags, int tagSpacing, int newestTagged)
+			throws IOException, InterruptedException {
+		git(workTree.getParent(), "init", "-q", workTree.toString());
+		git(workTree, "symbolic-ref", "HEAD", "refs/heads/master");
+		Process fastImport = new ProcessBuilder("git", "fast-import", "--quiet").directory(workTree.toFile())
+				.inheritIO().redirectInput(ProcessBuilder.Redirect.PIPE).start();
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(fastImport.getOutputStream(), UTF_8))) {
+			for (int i = 1; i <= commits; i++) {
+				writer.write("commit refs/heads/master\nmark :" + i + "\n");
+				writer.write("committer Benchmark <benchmark@example.com> " + (1000000000L + i) + " +0000\ndata 0\n");
+				if (i > 1) {
+					writer.write("from :" + (i - 1) + "\n");
+				}
+				writer.write("\n");
+			}
+			for (int i = 0; i < tags; i++) {
+				int tagged = newestTagged - (tags - 1 - i) * tagSpacing;
+				writer.write("reset refs/tags/v" + (i / 1000) + "." + (i % 1000) + ".0.0\nfrom :" + tagged + "\n\n");
+			}
+		}
+		if (fastImport.waitFor() != 0) {
+			throw new IOException("git fast-import failed in " + workTree);
+		}
+		git(workTree, "pack-refs", "--all");
+	}
+
+	private static void git(Path directory, String... args) throws IOException, InterruptedException {
+		String[] command = new String[args.length + 1];
+		command[0] = "git";
+		System.arraycopy(args, 0, command, 1, args.length);
+		Files.createDirectories(directory);
+		Process process = new ProcessBuilder(command).directory(directory.toFile()).inheritIO().start();
+		if (process.waitFor() != 0) {
+			throw new IOException("git " + String.join(" ", args) + " failed in " + directory);
+		}
+	}
+}
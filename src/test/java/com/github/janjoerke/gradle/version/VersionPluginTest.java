@@ -0,0 +1,91 @@
+package com.github.janjoerke.gradle.version;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildServiceRegistration;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VersionPluginTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void shouldShareVersionServiceBetweenProjectsOfBuild() throws Exception {
+		File rootDir = folder.newFolder("repository");
+		try (Git git = Git.init().setDirectory(rootDir).call()) {
+			RevCommit commit = git.commit().setMessage("initial").setAllowEmpty(true).call();
+			git.tag().setName("1.2.0.0").setObjectId(commit).setAnnotated(false).call();
+		}
+		Project root = ProjectBuilder.builder().withProjectDir(rootDir).build();
+		Project first = ProjectBuilder.builder().withParent(root).withName("first").build();
+		Project second = ProjectBuilder.builder().withParent(root).withName("second").build();
+		root.getPluginManager().apply(VersionPlugin.class);
+		first.getPluginManager().apply(VersionPlugin.class);
+		second.getPluginManager().apply(VersionPlugin.class);
+		Path cacheFile = rootDir.toPath().resolve(".gradle/version").resolve(VersionSeeker.CACHE_FILE_NAME);
+		assertFalse(Files.exists(cacheFile));
+
+		assertEquals("1.2.0.0", root.getVersion().toString());
+		assertTrue(Files.exists(cacheFile));
+		// A second resolution would read the altered cache, the other projects share the first one instead.
+		String cache = new String(Files.readAllBytes(cacheFile), UTF_8);
+		Files.write(cacheFile, cache.replace("version=1.2.0.0", "version=9.9.9.9").getBytes(UTF_8));
+		assertEquals("1.2.0.0", first.getVersion().toString());
+		assertEquals("1.2.0.0", second.getVersion().toString());
+		assertEquals(1, root.getGradle().getSharedServices().getRegistrations().size());
+		BuildServiceRegistration<?, ?> registration = root.getGradle().getSharedServices().getRegistrations().iterator().next();
+		assertSame(registration.getService().get(), second.getGradle().getSharedServices().getRegistrations().iterator().next().getService().get());
+	}
+
+	@Test
+	public void shouldWireVersionIntoReleaseTask() throws Exception {
+		File rootDir = folder.newFolder("repository");
+		try (Git git = Git.init().setDirectory(rootDir).call()) {
+			RevCommit commit = git.commit().setMessage("initial").setAllowEmpty(true).call();
+			git.tag().setName("v2.0.0.0").setObjectId(commit).setAnnotated(false).call();
+		}
+		Project project = ProjectBuilder.builder().withProjectDir(rootDir).build();
+		project.getPluginManager().apply(VersionPlugin.class);
+		Release release = (Release) project.getTasks().getByName(VersionPlugin.RELEASE_TASK_NAME);
+
+		assertEquals("2.0.0.0", release.getReleaseVersion().get());
+	}
+
+	@Test
+	public void shouldKeepVersionSourceUntilVersionTagged() throws Exception {
+		File rootDir = folder.newFolder("repository");
+		Project project = ProjectBuilder.builder().withProjectDir(rootDir).build();
+		try (Git git = Git.init().setDirectory(rootDir).call()) {
+			RevCommit commit = git.commit().setMessage("initial").setAllowEmpty(true).call();
+			git.tag().setName("1.0.0.0").setObjectId(commit).setAnnotated(false).call();
+			assertEquals("1.0.0.0", versionSource(project, rootDir).get());
+			commit = git.commit().setMessage("second").setAllowEmpty(true).call();
+			assertEquals("1.0.0.0", versionSource(project, rootDir).get());
+			git.tag().setName("1.1.0.0").setObjectId(commit).setAnnotated(false).call();
+			assertEquals("1.1.0.0", versionSource(project, rootDir).get());
+		}
+	}
+
+	private Provider<String> versionSource(Project project, File repositoryRoot) {
+		return project.getProviders().of(VersionSource.class, spec -> {
+			spec.getParameters().getRootDir().set(repositoryRoot);
+			spec.getParameters().getCacheDir().set(new File(repositoryRoot, ".gradle/version"));
+		});
+	}
+}
@@ -0,0 +1,167 @@
+package com.github.janjoerke.gradle.version;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+public class VersionSeekerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Git git;
+
+	private Path projectDir;
+
+	@Before
+	public void setUp() throws Exception {
+		File workTree = folder.newFolder("repository");
+		git = Git.init().setDirectory(workTree).call();
+		projectDir = new File(workTree, "subproject").toPath();
+		projectDir.toFile().mkdirs();
+	}
+
+	@After
+	public void tearDown() {
+		git.close();
+	}
+
+	@Test
+	public void shouldReturnZeroOutsideOfRepository() throws Exception {
+		Path outside = folder.newFolder("outside").toPath();
+		assertEquals(Version.forIntegers(0), new VersionSeeker().seek(outside));
+	}
+
+	@Test
+	public void shouldReturnZeroWithoutCommits() {
+		assertEquals(Version.forIntegers(0), new VersionSeeker().seek(projectDir));
+	}
+
+	@Test
+	public void shouldReturnZeroWithoutVersionTags() throws Exception {
+		RevCommit commit = commit("initial");
+		git.tag().setName("not-a-version").setObjectId(commit).setAnnotated(false).call();
+		assertEquals(Version.forIntegers(0), new VersionSeeker().seek(projectDir));
+	}
+
+	@Test
+	public void shouldFindTagOfHead() throws Exception {
+		RevCommit commit = commit("initial");
+		git.tag().setName("1.2.0.0").setObjectId(commit).setAnnotated(false).call();
+		assertEquals(Version.valueOf("1.2.0.0"), new VersionSeeker().seek(projectDir));
+	}
+
+	@Test
+	public void shouldFindNearestTaggedAncestor() throws Exception {
+		RevCommit first = commit("first");
+		git.tag().setName("1.0.0.0").setObjectId(first).setAnnotated(false).call();
+		RevCommit second = commit("second");
+		git.tag().setName("v1.1.0.0").setObjectId(second).setMessage("Release 1.1").call();
+		commit("third");
+		commit("fourth");
+		assertEquals(Version.valueOf("1.1.0.0"), new VersionSeeker().seek(projectDir));
+	}
+
+	@Test
+	public void shouldPreferHighestVersionOfCommit() throws Exception {
+		RevCommit commit = commit("initial");
+		git.tag().setName("1.0.0.0").setObjectId(commit).setAnnotated(false).call();
+		git.tag().setName("1.0.0.1").setObjectId(commit).setMessage("Hotfix").call();
+		git.tag().setName("1.0.0.0-rc.1").setObjectId(commit).setAnnotated(false).call();
+		assertEquals(Version.valueOf("1.0.0.1"), new VersionSeeker().seek(projectDir));
+	}
+
+	@Test
+	public void shouldFindTagOnMergedBranch() throws Exception {
+		commit("initial");
+		Ref master = git.getRepository().exactRef("HEAD").getTarget();
+		git.checkout().setCreateBranch(true).setName("feature").call();
+		RevCommit feature = commit("feature");
+		git.tag().setName("2.0.0.0").setObjectId(feature).setAnnotated(false).call();
+		git.checkout().setName(master.getName()).call();
+		commit("master");
+		git.merge().include(feature).setMessage("merge").call();
+		assertEquals(Version.valueOf("2.0.0.0"), new VersionSeeker().seek(projectDir));
+	}
+
+	@Test
+	public void shouldStopWalkAfterMaximumNumberOfCommits() throws Exception {
+		RevCommit commit = commit("first");
+		git.tag().setName("1.0.0.0").setObjectId(commit).setAnnotated(false).call();
+		commit("second");
+		commit("third");
+		commit("fourth");
+		assertEquals(Optional.empty(), new TagResolver(3).resolve(git.getRepository()));
+		assertEquals(Optional.of(Version.valueOf("1.0.0.0")), new TagResolver(4).resolve(git.getRepository()));
+	}
+
+	@Test
+	public void shouldNotCacheVersionWhenWalkIsStopped() throws Exception {
+		RevCommit commit = commit("first");
+		git.tag().setName("1.0.0.0").setObjectId(commit).setAnnotated(false).call();
+		commit("second");
+		Path cacheDir = folder.newFolder(".gradle").toPath();
+		assertEquals(Version.forIntegers(0), new VersionSeeker(cacheDir, 1).seek(projectDir));
+		assertFalse(Files.exists(cacheDir.resolve(VersionSeeker.CACHE_FILE_NAME)));
+		assertEquals(Version.valueOf("1.0.0.0"), new VersionSeeker(cacheDir, 2).seek(projectDir));
+	}
+
+	@Test
+	public void shouldReadVersionFromCacheWhileRefsAreUnchanged() throws Exception {
+		RevCommit commit = commit("initial");
+		git.tag().setName("1.0.0.0").setObjectId(commit).setAnnotated(false).call();
+		Path cacheDir = folder.newFolder(".gradle").toPath();
+		assertEquals(Version.valueOf("1.0.0.0"), new VersionSeeker(cacheDir).seek(projectDir));
+
+		Path cacheFile = cacheDir.resolve(VersionSeeker.CACHE_FILE_NAME);
+		String cache = new String(Files.readAllBytes(cacheFile), UTF_8);
+		Files.write(cacheFile, cache.replace("version=1.0.0.0", "version=9.9.9.9").getBytes(UTF_8));
+		assertEquals(Version.valueOf("9.9.9.9"), new VersionSeeker(cacheDir).seek(projectDir));
+		assertEquals(Version.valueOf("1.0.0.0"), new VersionSeeker().seek(projectDir));
+	}
+
+	@Test
+	public void shouldInvalidateCacheWhenTagsChange() throws Exception {
+		RevCommit commit = commit("initial");
+		git.tag().setName("1.0.0.0").setObjectId(commit).setAnnotated(false).call();
+		Path cacheDir = folder.newFolder(".gradle").toPath();
+		assertEquals(Version.valueOf("1.0.0.0"), new VersionSeeker(cacheDir).seek(projectDir));
+
+		git.tag().setName("1.0.0.1").setObjectId(commit).setAnnotated(false).call();
+		assertEquals(Version.valueOf("1.0.0.1"), new VersionSeeker(cacheDir).seek(projectDir));
+	}
+
+	@Test
+	public void shouldInvalidateCacheWhenHeadMoves() throws Exception {
+		RevCommit first = commit("first");
+		git.tag().setName("1.0.0.0").setObjectId(first).setAnnotated(false).call();
+		Path cacheDir = folder.newFolder(".gradle").toPath();
+		assertEquals(Version.valueOf("1.0.0.0"), new VersionSeeker(cacheDir).seek(projectDir));
+
+		RevCommit second = commit("second");
+		git.tag().setName("1.1.0.0").setObjectId(second).setMessage("Release 1.1").call();
+		assertEquals(Version.valueOf("1.1.0.0"), new VersionSeeker(cacheDir).seek(projectDir));
+		git.checkout().setName(first.name()).call();
+		assertEquals(Version.valueOf("1.0.0.0"), new VersionSeeker(cacheDir).seek(projectDir));
+	}
+
+	private RevCommit commit(String message) throws Exception {
+		return git.commit().setMessage(message).setAllowEmpty(true).call();
+	}
+}
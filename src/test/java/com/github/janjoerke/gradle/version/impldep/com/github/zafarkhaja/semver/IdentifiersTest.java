@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class IdentifiersTest {
+
+    @Test
+    public void shouldShareCommonIdentifiers() {
+        String input = "1.0.0.0-rc.12";
+        assertSame(Identifiers.intern("rc", 0, 2), Identifiers.intern(input, 8, 10));
+        assertSame(Identifiers.intern("12", 0, 2), Identifiers.intern(input, 11, 13));
+        assertEquals("rc", Identifiers.intern(input, 8, 10));
+    }
+
+    @Test
+    public void shouldCopyUncommonIdentifiers() {
+        assertEquals("rc1", Identifiers.intern("1.0.0.0-rc1", 8, 11));
+        assertEquals("100", Identifiers.intern("100", 0, 3));
+        assertEquals("candidates", Identifiers.intern("candidates", 0, 10));
+    }
+
+    @Test
+    public void shouldShareCommonPreReleaseVersions() {
+        assertSame(Identifiers.preRelease(new String[] { "SNAPSHOT" }),
+            Identifiers.preRelease(new String[] { new String("SNAPSHOT") }));
+        assertSame(Identifiers.preRelease(new String[] { "rc", "1" }),
+            Identifiers.preRelease(new String[] { "rc", new String("1") }));
+        assertNotSame(Identifiers.preRelease(new String[] { "rc", "feature" }),
+            Identifiers.preRelease(new String[] { "rc", "feature" }));
+    }
+
+    @Test
+    public void shouldParseVersionsWithSharedPreReleaseVersions() {
+        Version v1 = Version.valueOf("1.2.3.4-alpha.2+build.1");
+        Version v2 = Version.valueOf("2.0.0.0-alpha.2");
+        assertEquals("alpha.2", v1.getPreReleaseVersion());
+        assertEquals("build.1", v1.getBuildMetadata());
+        assertEquals("alpha.3", v2.incrementPreReleaseVersion().getPreReleaseVersion());
+        assertEquals(0, v1.setPreReleaseVersion("alpha.2").compareTo(
+            new Version.Builder().setNormalVersion(1, 2, 3, 4).setPreReleaseIdentifiers("alpha", "2").build()));
+    }
+}
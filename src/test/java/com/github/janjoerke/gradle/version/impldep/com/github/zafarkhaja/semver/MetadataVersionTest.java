@@ -85,6 +85,43 @@ public class MetadataVersionTest {
             assertTrue(0 < v1.compareTo(v2));
         }
 
+        @Test
+        public void shouldCompareNumericIdentifiersByValueNotLength() {
+            MetadataVersion v1 = new MetadataVersion(
+                new String[] {"rc", "2"}
+            );
+            MetadataVersion v2 = new MetadataVersion(
+                new String[] {"rc", "11"}
+            );
+            assertTrue(0 > v1.compareTo(v2));
+            assertTrue(0 < v2.compareTo(v1));
+        }
+
+        @Test
+        public void shouldCompareNumericIdentifiersOutsideIntegerRangeAsAlphanumeric() {
+            MetadataVersion v1 = new MetadataVersion(
+                new String[] {"20190512103059"}
+            );
+            MetadataVersion v2 = new MetadataVersion(
+                new String[] {"3"}
+            );
+            MetadataVersion v3 = new MetadataVersion(
+                new String[] {"3000000000"}
+            );
+            assertTrue(0 < v1.compareTo(v2));
+            assertTrue(0 > v1.compareTo(v3));
+        }
+
+        @Test
+        public void shouldGiveNumericIdentifiersLowerPrecedenceThanAlphanumericOnes() {
+            MetadataVersion v1 = new MetadataVersion(new String[] {"1a"});
+            MetadataVersion v2 = new MetadataVersion(new String[] {"2"});
+            MetadataVersion v3 = new MetadataVersion(new String[] {"10"});
+            assertTrue(0 > v2.compareTo(v3));
+            assertTrue(0 > v3.compareTo(v1));
+            assertTrue(0 > v2.compareTo(v1));
+        }
+
         @Test
         public void shouldReturnNegativeWhenComparedToNullMetadataVersion() {
             MetadataVersion v1 = new MetadataVersion(new String[] {});
@@ -133,6 +170,17 @@ public class MetadataVersionTest {
             MetadataVersion v2 = v1.increment();
             assertNotSame(v1, v2);
         }
+
+        @Test
+        public void shouldNotModifyOriginalWhenIncrementing() {
+            MetadataVersion v1 = new MetadataVersion(
+                new String[] {"rc", "1"}
+            );
+            MetadataVersion v2 = v1.increment();
+            assertEquals("rc.1", v1.toString());
+            assertEquals("rc.2", v2.toString());
+            assertTrue(0 > v1.compareTo(v2));
+        }
     }
 
     public static class NullMetadataVersionTest {
@@ -124,6 +124,37 @@ public class NormalVersionTest {
             assertFalse(v1.equals(v3));
         }
 
+        @Test
+        public void shouldCompareNumbersAboveSignedShortRange() {
+            NormalVersion v = new NormalVersion(40000, 0, 0, 0);
+            assertTrue(0 < v.compareTo(new NormalVersion(1, 65535, 65535, 65535)));
+            assertTrue(0 > v.compareTo(new NormalVersion(40000, 0, 0, 1)));
+        }
+
+        @Test
+        public void shouldCompareNumbersTooLargeToBePacked() {
+            NormalVersion v = new NormalVersion(1, 2, 3, 100000);
+            assertTrue(0 < v.compareTo(new NormalVersion(1, 2, 3, 65535)));
+            assertTrue(0 > v.compareTo(new NormalVersion(1, 2, 4, 0)));
+            assertTrue(0 > v.compareTo(new NormalVersion(1, 2, 3, Integer.MAX_VALUE)));
+            assertTrue(0 == v.compareTo(new NormalVersion(1, 2, 3, 100000)));
+            assertTrue(v.equals(new NormalVersion(1, 2, 3, 100000)));
+            assertFalse(v.equals(new NormalVersion(1, 2, 3, 65535)));
+        }
+
+        @Test
+        public void shouldPackOnlyNumbersFittingIntoSixteenBits() {
+            assertEquals(0x0001000200030004L, new NormalVersion(1, 2, 3, 4).getPacked());
+            assertEquals(NormalVersion.UNPACKED, new NormalVersion(65536, 0, 0, 0).getPacked());
+        }
+
+        @Test
+        public void shouldUnpackPackedNumbers() {
+            NormalVersion v = NormalVersion.unpack(new NormalVersion(1, 65535, 0, 40000).getPacked());
+            assertEquals(new NormalVersion(1, 65535, 0, 40000), v);
+            assertEquals(40000, NormalVersion.unpack(v.getPacked(), 3));
+        }
+
         @Test
         public void shoudBeImmutable() {
             NormalVersion version = new NormalVersion(1, 2, 3, 4);
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class VersionCacheTest {
+
+    @Test
+    public void shouldReturnSameInstanceForEqualStrings() {
+        VersionCache cache = new VersionCache(16);
+        Version v1 = cache.valueOf("1.2.3.4-rc.1");
+        Version v2 = cache.valueOf(new String("1.2.3.4-rc.1"));
+        assertSame(v1, v2);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldEvictOldestEntriesWhenFull() {
+        VersionCache cache = new VersionCache(2);
+        Version v1 = cache.valueOf("1.0.0.0");
+        cache.valueOf("2.0.0.0");
+        cache.valueOf("3.0.0.0");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotSame(v1, cache.valueOf("1.0.0.0"));
+    }
+
+    @Test
+    public void shouldNotCountCollectedEntries() {
+        VersionCache cache = new VersionCache(4);
+        Version oldest = cache.valueOf("1.0.0.0");
+        for (int i = 1; i < 4; i++) {
+            cache.valueOf("1.0." + i + ".0");
+        }
+        for (int i = 0; i < 20 && cache.size() > 1; i++) {
+            System.gc();
+        }
+        Assume.assumeTrue("The cached versions have not been collected", cache.size() == 1);
+        for (int i = 0; i < 3; i++) {
+            cache.valueOf("2.0." + i + ".0");
+        }
+        assertEquals(4, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+        assertSame(oldest, cache.valueOf("1.0.0.0"));
+    }
+
+    @Test
+    public void shouldNotCacheInvalidVersions() {
+        VersionCache cache = new VersionCache(16);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.valueOf("1.2.3");
+                fail("Should raise error for invalid version");
+            } catch (ParseException e) {
+                // expected
+            }
+        }
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldRaiseErrorForNullInput() {
+        try {
+            new VersionCache(16).valueOf(null);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        fail("Should raise error for NULL input string");
+    }
+
+    @Test
+    public void shouldRejectNonPositiveMaximumSize() {
+        try {
+            new VersionCache(0);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        fail("Maximum size MUST be a positive integer.");
+    }
+
+    @Test
+    public void shouldBeUsedByValueOfWhenInstalled() {
+        VersionCache cache = new VersionCache(16);
+        Version.setCache(cache);
+        try {
+            assertSame(cache, Version.getCache());
+            assertSame(Version.valueOf("1.2.3.4"), Version.valueOf("1.2.3.4"));
+        } finally {
+            Version.setCache(null);
+        }
+        assertNull(Version.getCache());
+        assertNotSame(Version.valueOf("1.2.3.4"), Version.valueOf("1.2.3.4"));
+    }
+
+    @Test
+    public void shouldReturnCanonicalInstanceUnderConcurrentAccess() throws Exception {
+        final VersionCache cache = new VersionCache(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Version[]>> futures = new ArrayList<Future<Version[]>>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(new Callable<Version[]>() {
+                    @Override
+                    public Version[] call() {
+                        Version[] versions = new Version[100];
+                        for (int i = 0; i < versions.length; i++) {
+                            versions[i] = cache.valueOf("1.0." + i + ".0");
+                        }
+                        return versions;
+                    }
+                }));
+            }
+            Version[] first = futures.get(0).get();
+            for (Future<Version[]> future : futures) {
+                Version[] versions = future.get();
+                for (int i = 0; i < versions.length; i++) {
+                    assertSame(first[i], versions[i]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(100, cache.size());
+        assertEquals(800, cache.getHitCount() + cache.getMissCount());
+    }
+}
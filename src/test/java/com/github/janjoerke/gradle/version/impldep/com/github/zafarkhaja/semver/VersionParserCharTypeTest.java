@@ -91,6 +91,8 @@ public class VersionParserCharTypeTest {
         assertFalse(ILLEGAL.isMatchedBy('-'));
         assertFalse(ILLEGAL.isMatchedBy('a'));
         assertFalse(ILLEGAL.isMatchedBy('0'));
+        assertFalse(ILLEGAL.isMatchedBy(null));
+        assertTrue(ILLEGAL.isMatchedBy('\u00e9'));
     }
 
     @Test
@@ -102,5 +104,6 @@ public class VersionParserCharTypeTest {
         assertEquals(PLUS,    CharType.forCharacter('+'));
         assertEquals(EOI,     CharType.forCharacter(null));
         assertEquals(ILLEGAL, CharType.forCharacter('!'));
+        assertEquals(ILLEGAL, CharType.forCharacter('\u0661'));
     }
 }
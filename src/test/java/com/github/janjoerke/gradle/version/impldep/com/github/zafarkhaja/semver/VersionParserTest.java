@@ -25,6 +25,9 @@
 package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.junit.Test;
@@ -116,6 +119,31 @@ public class VersionParserTest {
                 new MetadataVersion(new String[] { "build", "05" })), version);
     }
 
+    @Test
+    public void shouldParseAnyCharSequence() {
+        Version version = VersionParser.parseValidSemVer(new StringBuilder("1.2.3.4-rc.1+build.7"));
+        assertEquals(new Version(new NormalVersion(1, 2, 3, 4), new MetadataVersion(new String[] { "rc", "1" }),
+                new MetadataVersion(new String[] { "build", "7" })), version);
+        assertEquals("build.7", version.getBuildMetadata());
+    }
+
+    @Test
+    public void shouldAllowNumericPreReleaseIdentifiersBeyondIntegerRange() {
+        MetadataVersion preRelease = VersionParser.parsePreRelease("20190512103059");
+        assertEquals("20190512103059", preRelease.toString());
+    }
+
+    @Test
+    public void shouldRaiseErrorIfVersionNumberDoesNotFitIntoInteger() {
+        try {
+            VersionParser.parseVersionCore("1.2147483648.0.0");
+        } catch (NumberFormatException e) {
+            assertEquals("For input string: \"2147483648\"", e.getMessage());
+            return;
+        }
+        fail("Version numbers MUST fit into an integer");
+    }
+
     @Test
     public void shouldRaiseErrorForIllegalInputString() {
         for (String illegal : new String[] { "", null }) {
@@ -127,4 +155,39 @@ public class VersionParserTest {
             fail("Should raise error for illegal input string");
         }
     }
+
+    @Test
+    public void shouldTryToParseValidSemVer() {
+        ParseResult result = VersionParser.tryParseValidSemVer("1.0.0.0-rc.2+build.05");
+        assertTrue(result.isValid());
+        assertEquals(Version.valueOf("1.0.0.0-rc.2+build.05"), result.getVersion());
+        assertEquals(-1, result.getErrorOffset());
+        assertNull(result.getException());
+    }
+
+    @Test
+    public void shouldDescribeFailuresLikeStrictParser() {
+        String[] invalid = { "", null, "1.0", "1.0.0.0-", "01.0.0.0", "1.0.0.0-rc..1", "1.0.0.0+", "1.0.0.0@", "1.2147483648.0.0" };
+        for (String input : invalid) {
+            ParseResult result = VersionParser.tryParseValidSemVer(input);
+            assertFalse(input, result.isValid());
+            assertNull(input, result.getVersion());
+            try {
+                VersionParser.parseValidSemVer(input);
+            } catch (RuntimeException e) {
+                RuntimeException lazy = result.getException();
+                assertEquals(input, e.getClass(), lazy.getClass());
+                assertEquals(input, e.toString(), lazy.toString());
+                continue;
+            }
+            fail("Should raise error for " + input);
+        }
+    }
+
+    @Test
+    public void shouldReportOffsetOfFailure() {
+        assertEquals(5, VersionParser.tryParseValidSemVer("1.0.0!0").getErrorOffset());
+        assertEquals(3, VersionParser.tryParseValidSemVer("1.0").getErrorOffset());
+        assertEquals(0, VersionParser.tryParseValidSemVer("v1.0.0.0").getErrorOffset());
+    }
 }
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VersionReaderTest {
+
+    private static final String INPUT = "1.2.3.4\n\n  1.0.0.0-rc.1+build.5\r\nv1.0\n01.0.0.0\r\n"
+        + "12345678.0.0.0\n1.2.3\n0.0.0.0";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<String> readAll(VersionReader reader, final List<String> invalid) throws IOException {
+        reader.setInvalidLineHandler(new VersionReader.InvalidLineHandler() {
+            @Override
+            public void invalidLine(long lineNumber, long offset, String line, ParseResult result) {
+                invalid.add(lineNumber + "@" + offset + ":" + line + ":" + result.getErrorOffset());
+            }
+        });
+        List<String> versions = new ArrayList<String>();
+        Version version;
+        while ((version = reader.read()) != null) {
+            versions.add(version.toString());
+        }
+        reader.close();
+        return versions;
+    }
+
+    private static void assertReadsInput(VersionReader reader) throws IOException {
+        List<String> invalid = new ArrayList<String>();
+        List<String> versions = readAll(reader, invalid);
+        assertEquals("[1.2.3.4, 1.0.0.0-rc.1+build.5, 12345678.0.0.0, 0.0.0.0]", versions.toString());
+        assertEquals("[4@33:v1.0:0, 5@38:01.0.0.0:0, 7@63:1.2.3:5]", invalid.toString());
+        assertEquals(8, reader.getLineNumber());
+    }
+
+    @Test
+    public void shouldReadVersionsFromInputStream() throws IOException {
+        assertReadsInput(new VersionReader(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    public void shouldReadVersionsFromReader() throws IOException {
+        assertReadsInput(new VersionReader(new StringReader(INPUT)));
+    }
+
+    @Test
+    public void shouldReadVersionsFromMappedFile() throws IOException {
+        File file = folder.newFile("tags.txt");
+        Files.write(file.toPath(), INPUT.getBytes(StandardCharsets.US_ASCII));
+        assertReadsInput(VersionReader.open(file.toPath()));
+    }
+
+    @Test
+    public void shouldReadEmptyInput() throws IOException {
+        File file = folder.newFile("empty.txt");
+        assertNull(VersionReader.open(file.toPath()).read());
+        assertNull(new VersionReader(new ByteArrayInputStream(new byte[0])).read());
+    }
+
+    @Test
+    public void shouldReadLinesAcrossBufferBoundaries() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 50000; i++) {
+            String version = (i % 13) + "." + (i % 1000) + "." + i + "." + (i * 7 % 100000)
+                + ((i % 5 == 0) ? "-alpha." + i : "");
+            expected.add(version);
+            sb.append(version).append('\n');
+            if (i == 20000) {
+                for (int j = 0; j < 70000; j++) {
+                    sb.append(' ');
+                }
+                sb.append("invalid\n");
+            }
+        }
+        List<String> invalid = new ArrayList<String>();
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        assertEquals(expected, readAll(new VersionReader(new ByteArrayInputStream(bytes)), invalid));
+        assertEquals(1, invalid.size());
+    }
+
+    @Test
+    public void shouldConvertDigitsEightBytesAtOnce() {
+        ByteBuffer buffer = ByteBuffer.wrap("40960.1xyzzzzzz".getBytes(StandardCharsets.US_ASCII))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        long word = buffer.getLong(0);
+        assertEquals(5, VersionReader.digitCount(word));
+        assertEquals(40960, VersionReader.digitValue(word, 5));
+        assertEquals(4, VersionReader.digitValue(word, 1));
+        word = buffer.getLong(6);
+        assertEquals(1, VersionReader.digitCount(word));
+        assertEquals(1, VersionReader.digitValue(word, 1));
+        word = ByteBuffer.wrap("98765432".getBytes(StandardCharsets.US_ASCII)).order(ByteOrder.LITTLE_ENDIAN).getLong();
+        assertEquals(8, VersionReader.digitCount(word));
+        assertEquals(98765432, VersionReader.digitValue(word, 8));
+    }
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.Expression;
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.ExpressionParser;
+
+public class VersionSetTest {
+
+    private static VersionSet setOf(String... versions) {
+        List<Version> list = new ArrayList<Version>();
+        for (String version : versions) {
+            list.add(Version.valueOf(version));
+        }
+        return VersionSet.of(list);
+    }
+
+    private static Version v(String version) {
+        return Version.valueOf(version);
+    }
+
+    @Test
+    public void shouldSortAndDeduplicateVersions() {
+        VersionSet set = setOf("2.0.0.0", "1.0.0.0+b", "1.0.0.0-rc.1", "1.0.0.0", "1.70000.0.0", "1.0.0.0+a");
+        assertEquals(4, set.size());
+        assertEquals(
+            Arrays.asList(v("1.0.0.0-rc.1"), v("1.0.0.0"), v("1.70000.0.0"), v("2.0.0.0")),
+            set.toList()
+        );
+        assertEquals("", set.get(1).getBuildMetadata());
+        assertEquals("rc.1", set.earliest().getPreReleaseVersion());
+        assertEquals(v("2.0.0.0"), set.latest());
+        assertTrue(set.contains(v("1.70000.0.0")));
+        assertFalse(set.contains(v("1.0.0.0-rc.2")));
+    }
+
+    @Test
+    public void shouldFindNeighboursOfVersions() {
+        VersionSet set = setOf("1.0.0.0", "1.4.0.0-rc.1", "1.4.0.0-rc.2", "1.4.0.0", "2.0.0.0-beta", "2.0.0.0");
+        assertEquals(v("1.4.0.0"), set.lower(v("2.0.0.0-alpha")));
+        assertEquals(v("2.0.0.0-beta"), set.floor(v("2.0.0.0-beta")));
+        assertEquals(v("1.4.0.0-rc.2"), set.ceiling(v("1.4.0.0-rc.1.1")));
+        assertEquals(v("1.4.0.0-rc.1"), set.higher(v("1.1.0.0")));
+        assertNull(set.lower(v("1.0.0.0")));
+        assertNull(set.higher(v("2.0.0.0")));
+    }
+
+    @Test
+    public void shouldProvideRangeViews() {
+        VersionSet set = setOf("1.0.0.0", "1.4.0.0-rc.1", "1.4.0.0-rc.2", "1.4.0.0", "1.5.0.0", "2.0.0.0");
+        VersionSet rcs = set.subSet(v("1.4.0.0-0"), true, v("1.4.0.0"), false);
+        assertEquals(Arrays.asList(v("1.4.0.0-rc.1"), v("1.4.0.0-rc.2")), rcs.toList());
+        assertEquals(v("1.4.0.0-rc.2"), rcs.latest());
+        assertEquals(v("1.5.0.0"), set.headSet(v("2.0.0.0"), false).latest());
+        assertEquals(v("1.4.0.0"), set.tailSet(v("1.4.0.0-rc.2"), false).earliest());
+        assertEquals(3, set.headSet(v("1.4.0.0"), true).tailSet(v("1.0.0.0"), false).size());
+        assertTrue(set.subSet(v("2.0.0.0"), true, v("1.0.0.0"), true).isEmpty());
+        assertNull(set.subSet(v("1.1.0.0"), true, v("1.2.0.0"), true).latest());
+    }
+
+    @Test
+    public void shouldFindLatestVersionSatisfyingExpression() {
+        Parser<Expression> parser = ExpressionParser.newInstance();
+        VersionSet set = setOf("1.0.0.0", "1.4.0.0-rc.1", "1.4.0.0", "1.9.9.9", "2.0.0.0", "3.1.0.0");
+        assertEquals(v("1.9.9.9"), set.latestSatisfying(parser.parse("<2.0.0.0")));
+        assertEquals(v("1.4.0.0"), set.latestSatisfying(parser.parse("~1.4 | =1.0.0.0")));
+        assertEquals(v("3.1.0.0"), set.latestSatisfying(parser.parse("!(2.0.0.0)")));
+        assertNull(set.latestSatisfying(parser.parse(">3.1.0.0")));
+        assertEquals(v("2.0.0.0"), set.latestSatisfying(new Expression() {
+            @Override
+            public boolean interpret(Version version) {
+                return version.getMajorVersion() == 2;
+            }
+        }));
+    }
+
+    @Test
+    public void shouldFindEarliestVersionSatisfyingExpression() {
+        Parser<Expression> parser = ExpressionParser.newInstance();
+        VersionSet set = setOf("1.0.0.0", "1.4.0.0-rc.1", "1.4.0.0", "1.9.9.9", "2.0.0.0", "3.1.0.0");
+        assertEquals(v("1.4.0.0-rc.1"), set.earliestSatisfying(parser.parse(">1.0.0.0")));
+        assertEquals(v("1.4.0.0"), set.earliestSatisfying(parser.parse("~1.4 | =3.1.0.0")));
+        assertEquals(v("1.4.0.0-rc.1"), set.earliestSatisfying(parser.parse("!(1.0.0.0)")));
+        assertNull(set.earliestSatisfying(parser.parse("<1.0.0.0")));
+        assertEquals(v("2.0.0.0"), set.earliestSatisfying(new Expression() {
+            @Override
+            public boolean interpret(Version version) {
+                return version.getMajorVersion() >= 2;
+            }
+        }));
+    }
+
+    @Test
+    public void shouldAgreeWithLinearSearch() {
+        Random random = new Random(42);
+        List<Version> versions = new ArrayList<Version>();
+        for (int i = 0; i < 500; i++) {
+            String version = random.nextInt(3) + "." + random.nextInt(4) + ".0." + random.nextInt(70000 * (i % 2) + 3);
+            versions.add(v(random.nextBoolean() ? version : version + "-rc." + random.nextInt(3)));
+        }
+        VersionSet set = VersionSet.of(versions);
+        Collections.sort(versions);
+        for (int i = 0; i < 200; i++) {
+            Version probe = v(random.nextInt(3) + "." + random.nextInt(4) + ".0." + random.nextInt(70000));
+            Version floor = null;
+            for (Version version : versions) {
+                if (version.compareTo(probe) <= 0) {
+                    floor = version;
+                }
+            }
+            assertEquals(floor, set.floor(probe));
+        }
+    }
+}
@@ -32,6 +32,8 @@ import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
@@ -330,6 +332,35 @@ public class VersionTest {
             assertTrue(v.satisfies(gte("1.0.0.0").and(lt("2.0.0.0"))));
             assertFalse(v.satisfies(gte("2.0.0.0").and(lt("3.0.0.0"))));
         }
+
+        @Test
+        public void shouldCheckIfStringIsValidVersion() {
+            assertTrue(Version.isValid("1.2.3.4-rc.1+build.5"));
+            assertFalse(Version.isValid("release-1.2"));
+            assertFalse(Version.isValid(""));
+            assertFalse(Version.isValid(null));
+        }
+
+        @Test
+        public void shouldTryToParseVersionWithoutThrowing() {
+            assertEquals(Version.valueOf("1.2.3.4"), Version.tryParse("1.2.3.4").getVersion());
+            ParseResult result = Version.tryParse("feature/foo");
+            assertFalse(result.isValid());
+            assertTrue(result.getException() instanceof UnexpectedCharacterException);
+        }
+
+        @Test
+        public void shouldSupportNumbersTooLargeToBePacked() {
+            Version v = Version.valueOf("1.70000.3.4-rc.1");
+            assertEquals(70000, v.getMinorVersion());
+            assertEquals(Version.UNPACKED, v.getPackedNormalVersion());
+            assertEquals("1.70000.3.4-rc.1", v.toString());
+            assertEquals(v, Version.valueOf("1.70000.3.4-rc.1"));
+            assertEquals(v.hashCode(), Version.valueOf("1.70000.3.4-rc.1").hashCode());
+            assertTrue(v.greaterThan(Version.valueOf("1.65535.3.4")));
+            assertTrue(v.lessThan(v.incrementBuildVersion()));
+            assertEquals("1.70001.0.0", v.incrementMinorVersion().toString());
+        }
     }
 
     public static class EqualsMethodTest {
@@ -455,6 +486,40 @@ public class VersionTest {
                     .setBuildMetadata("build").build();
             assertEquals(Version.valueOf("1.0.0.0-alpha+build"), version);
         }
+
+        @Test
+        public void shouldBuildVersionFromIntegersAndIdentifiers() {
+            Version.Builder builder = new Version.Builder();
+            builder.setNormalVersion(1, 2, 3, 4);
+            builder.setPreReleaseIdentifiers("rc", "1");
+            builder.setBuildIdentifiers("build", "007");
+            Version version = builder.build();
+            assertEquals(Version.valueOf("1.2.3.4-rc.1+build.007"), version);
+            assertEquals("1.2.3.4-rc.1+build.007", version.toString());
+        }
+
+        @Test
+        public void shouldRaiseErrorForInvalidIdentifiers() {
+            String[][] invalid = { { "rc", "" }, { "rc.1" }, { "01" }, { "rc!" } };
+            for (String[] identifiers : invalid) {
+                try {
+                    new Version.Builder("1.0.0.0").setPreReleaseIdentifiers(identifiers).build();
+                } catch (ParseException e) {
+                    continue;
+                }
+                fail("Should raise error for " + Arrays.toString(identifiers));
+            }
+        }
+
+        @Test
+        public void shouldRaiseErrorForTrailingCharactersInComponents() {
+            try {
+                new Version.Builder("1.0.0.0").setPreReleaseVersion("alpha+build").build();
+            } catch (UnexpectedCharacterException e) {
+                return;
+            }
+            fail("Should raise error for trailing characters");
+        }
     }
 
     public static class BuildAwareOrderTest {
@@ -471,4 +536,47 @@ public class VersionTest {
             }
         }
     }
+
+    public static class SortKeyTest {
+
+        private static final String[] VERSIONS = { "0.0.0.0", "1.0.0.0--1", "1.0.0.0-1a", "1.0.0.0-2",
+                "1.0.0.0-10", "1.0.0.0-3000000000", "1.0.0.0-alpha", "1.0.0.0-alpha.1", "1.0.0.0-alpha.-1",
+                "1.0.0.0-alpha.beta", "1.0.0.0-alpha-1", "1.0.0.0-rc.1", "1.0.0.0-rc.1+build.1",
+                "1.0.0.0-rc.1+build.01", "1.0.0.0-rc.1+build", "1.0.0.0", "1.0.0.0+0.3.7", "1.0.0.0+a",
+                "1.0.0.1", "1.0.1.0", "1.0.255.0", "1.0.256.0", "1.70000.0.0-SNAPSHOT", "1.70000.0.0",
+                "2147483647.0.0.0" };
+
+        @Test
+        public void shouldOrderSortKeysLikeVersions() {
+            for (String s1 : VERSIONS) {
+                for (String s2 : VERSIONS) {
+                    Version v1 = Version.valueOf(s1);
+                    Version v2 = Version.valueOf(s2);
+                    assertEquals(s1 + " <> " + s2, Integer.signum(v1.compareTo(v2)),
+                            Integer.signum(Version.compareSortKeys(v1.toSortKey(), v2.toSortKey())));
+                }
+            }
+        }
+
+        @Test
+        public void shouldOrderBuildAwareSortKeysLikeBuildAwareOrder() {
+            for (String s1 : VERSIONS) {
+                for (String s2 : VERSIONS) {
+                    Version v1 = Version.valueOf(s1);
+                    Version v2 = Version.valueOf(s2);
+                    assertEquals(s1 + " <> " + s2, Integer.signum(Version.BUILD_AWARE_ORDER.compare(v1, v2)),
+                            Integer.signum(Version.compareSortKeys(v1.toBuildAwareSortKey(),
+                                    v2.toBuildAwareSortKey())));
+                }
+            }
+        }
+
+        @Test
+        public void shouldProduceEqualSortKeysForEqualVersions() {
+            Version v1 = Version.valueOf("1.2.3.4-rc.1+build.5");
+            Version v2 = Version.valueOf("1.2.3.4-rc.1");
+            assertTrue(Arrays.equals(v1.toSortKey(), v2.toSortKey()));
+            assertFalse(Arrays.equals(v1.toBuildAwareSortKey(), v2.toBuildAwareSortKey()));
+        }
+    }
 }
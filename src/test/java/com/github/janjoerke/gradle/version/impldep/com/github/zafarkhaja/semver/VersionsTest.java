@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class VersionsTest {
+
+    @Test
+    public void shouldSortLikeStableComparisonSort() {
+        Random random = new Random(7);
+        String[] preReleases = { "", "-rc.1", "-rc.2", "-alpha", "-alpha.1", "-1a", "-10", "-2", "+build" };
+        final List<Version> versions = new ArrayList<Version>();
+        for (int i = 0; i < 3000; i++) {
+            int large = (i % 10 == 0) ? 70000 : 300;
+            versions.add(Version.valueOf(random.nextInt(3) + "." + random.nextInt(large) + "." + random.nextInt(3)
+                + "." + random.nextInt(3) + preReleases[random.nextInt(preReleases.length)]));
+        }
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < versions.size(); i++) {
+            expected.add(i);
+        }
+        Collections.sort(expected, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                return versions.get(i1).compareTo(versions.get(i2));
+            }
+        });
+        int[] order = Versions.sort(versions);
+        assertEquals(expected.size(), order.length);
+        for (int i = 0; i < order.length; i++) {
+            assertEquals(expected.get(i).intValue(), order[i]);
+        }
+    }
+
+    @Test
+    public void shouldSortValidVersionStrings() {
+        List<String> tags = Arrays.asList("2.0.0.0", "v1.0", "1.0.0.0", "1.0.0.0-rc.1", "", "1.70000.0.0", "1.0.0.1");
+        assertArrayEquals(new int[] { 3, 2, 6, 5, 0 }, Versions.sortStrings(tags));
+    }
+
+    @Test
+    public void shouldSortEmptyLists() {
+        assertEquals(0, Versions.sort(new ArrayList<Version>()).length);
+        assertEquals(0, Versions.sortStrings(new ArrayList<String>()).length);
+    }
+
+    @Test
+    public void shouldCollectInvalidInputsWhileParsingInParallel() {
+        List<CharSequence> inputs = new ArrayList<CharSequence>();
+        List<Integer> invalid = new ArrayList<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            if (i % 7 == 3) {
+                inputs.add("release-" + i);
+                invalid.add(i);
+            } else {
+                inputs.add(new StringBuilder("1.0.").append(i).append(".0"));
+            }
+        }
+        ParsedVersions parsed = Versions.parseAll(inputs);
+        assertEquals(10000, parsed.size());
+        assertTrue(parsed.hasInvalidInputs());
+        int[] indexes = parsed.getInvalidIndexes();
+        assertEquals(invalid.size(), indexes.length);
+        for (int i = 0; i < indexes.length; i++) {
+            assertEquals(invalid.get(i).intValue(), indexes[i]);
+            assertEquals(0, parsed.getFailures().get(i).getErrorOffset());
+        }
+        assertNull(parsed.getVersion(3));
+        assertEquals(Version.valueOf("1.0.9998.0"), parsed.getVersion(9998));
+        assertEquals(10000 - invalid.size(), parsed.getVersions().size());
+    }
+
+    @Test
+    public void shouldParseSmallAndSequentialListsInOneChunk() {
+        ParsedVersions parsed = Versions.parseAll(new LinkedList<String>(Arrays.asList("1.0.0.0", "x")));
+        assertEquals(Arrays.asList(Version.valueOf("1.0.0.0")), parsed.getVersions());
+        assertArrayEquals(new int[] { 1 }, parsed.getInvalidIndexes());
+        assertFalse(Versions.parseAll(new ArrayList<String>()).hasInvalidInputs());
+    }
+
+    @Test
+    public void shouldStreamValidVersionsInInputOrder() {
+        List<String> inputs = new ArrayList<String>();
+        for (int i = 0; i < 5000; i++) {
+            inputs.add((i % 10 == 0) ? "invalid" : "2." + i + ".0.0");
+        }
+        List<Version> sequential = Versions.stream(inputs, false).collect(Collectors.toList());
+        List<Version> parallel = Versions.stream(inputs, true).collect(Collectors.toList());
+        assertEquals(4500, sequential.size());
+        assertEquals(sequential, parallel);
+        assertEquals(Version.valueOf("2.1.0.0"), sequential.get(0));
+    }
+}
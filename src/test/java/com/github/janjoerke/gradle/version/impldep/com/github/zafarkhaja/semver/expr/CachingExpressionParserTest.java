@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.CompositeExpression.Helper.eq;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Parser;
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+public class CachingExpressionParserTest {
+
+    private static class CountingParser implements Parser<Expression> {
+
+        private final Parser<Expression> parser = ExpressionParser.newInstance();
+
+        private int count;
+
+        @Override
+        public Expression parse(String input) {
+            count++;
+            return parser.parse(input);
+        }
+    }
+
+    @Test
+    public void shouldParseEachExpressionOnlyOnce() {
+        CountingParser counting = new CountingParser();
+        CachingExpressionParser parser = new CachingExpressionParser(counting, 16);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(parser.parse(">=1.0 & <2.0").interpret(Version.valueOf("1.5.0.0")));
+        }
+        assertEquals(1, counting.count);
+        assertEquals(1, parser.size());
+    }
+
+    @Test
+    public void shouldNotLetCallersModifyTheCachedExpression() {
+        CachingExpressionParser parser = new CachingExpressionParser(ExpressionParser.newInstance(), 16);
+        CompositeExpression expr = (CompositeExpression) parser.parse(">=1.0");
+        expr.and(eq("0.0.0.0"));
+        assertTrue(parser.parse(">=1.0").interpret(Version.valueOf("1.5.0.0")));
+    }
+
+    @Test
+    public void shouldEvictOldestExpressionsWhenFull() {
+        CountingParser counting = new CountingParser();
+        CachingExpressionParser parser = new CachingExpressionParser(counting, 2);
+        parser.parse("1");
+        parser.parse("2");
+        parser.parse("3");
+        assertEquals(2, parser.size());
+        parser.parse("1");
+        assertEquals(4, counting.count);
+    }
+
+    @Test
+    public void shouldNotCacheInvalidExpressions() {
+        CachingExpressionParser parser = new CachingExpressionParser(ExpressionParser.newInstance(), 16);
+        try {
+            parser.parse(">=1.0 &");
+            fail("Should raise error for invalid expression");
+        } catch (UnexpectedTokenException e) {
+            assertEquals(0, parser.size());
+        }
+    }
+
+    @Test
+    public void shouldShareStatelessParserBetweenThreads() throws InterruptedException {
+        final Parser<Expression> parser = ExpressionParser.newInstance();
+        final boolean[] failed = new boolean[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int major = t + 1;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 500; i++) {
+                        Expression expr = parser.parse("~" + major + "." + i);
+                        if (!expr.interpret(Version.forIntegers(major, i, 1))) {
+                            failed[0] = true;
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(failed[0]);
+    }
+}
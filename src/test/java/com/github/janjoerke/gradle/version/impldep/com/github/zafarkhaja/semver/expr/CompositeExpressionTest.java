@@ -31,11 +31,17 @@ import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.
 import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.CompositeExpression.Helper.lte;
 import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.CompositeExpression.Helper.neq;
 import static com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.CompositeExpression.Helper.not;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
 import org.junit.Test;
 
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
 import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.CompositeExpression;
 
 /**
@@ -107,4 +113,47 @@ public class CompositeExpressionTest {
         assertTrue(expr.interpret("1.5.0.0"));
         assertFalse(expr.interpret("2.5.0.0"));
     }
+
+    @Test
+    public void shouldInterpretAllVersionsLikeSingleVersions() {
+        Version[] versions = {
+            Version.valueOf("0.9.0.0"),
+            Version.valueOf("1.0.0.0-rc.1"),
+            Version.valueOf("1.0.0.0"),
+            Version.valueOf("1.5.0.0+build.1"),
+            Version.valueOf("2.0.0.0"),
+            Version.valueOf("70000.0.0.0"),
+            Version.valueOf("3.0.0.0-alpha"),
+        };
+        CompositeExpression[] exprs = {
+            gte("1.0.0.0").and(lt("2.0.0.0")),
+            not(eq("1.0.0.0")).and(neq("2.0.0.0")),
+            lte("1.0.0.0-rc.1").or(gt("3.0.0.0-alpha")),
+            new CompositeExpression(not(gte("1.0.0.0").and(lte("2.0.0.0")))),
+        };
+        for (CompositeExpression expr : exprs) {
+            BitSet matches = expr.interpretAll(versions);
+            for (int i = 0; i < versions.length; i++) {
+                assertEquals(versions[i].toString(), expr.interpret(versions[i]), matches.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldInterpretAllVersionsWithCustomExpressions() {
+        Expression custom = new Expression() {
+            @Override
+            public boolean interpret(Version version) {
+                return version.getMinorVersion() == 5;
+            }
+        };
+        CompositeExpression expr = gt("1.0.0.0").and(custom);
+        List<Version> versions = Arrays.asList(
+            Version.valueOf("1.0.0.0"),
+            Version.valueOf("1.5.0.0"),
+            Version.valueOf("2.0.0.0"),
+            Version.valueOf("2.5.0.0")
+        );
+        assertEquals(Arrays.asList(versions.get(1), versions.get(3)), expr.filter(versions));
+    }
 }
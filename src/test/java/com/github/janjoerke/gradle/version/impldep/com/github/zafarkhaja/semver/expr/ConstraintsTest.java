@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Parser;
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.VersionSet;
+
+import static org.junit.Assert.*;
+
+public class ConstraintsTest {
+
+    private static final List<Version> VERSIONS = versions(
+        "0.9.0.0", "1.0.0.0-rc.1", "1.0.0.0", "1.2.0.0", "1.2.5.0", "1.3.0.0-beta",
+        "1.3.0.0", "1.5.0.0", "2.0.0.0-rc.1", "2.0.0.0", "2.0.0.1", "2.5.0.0", "3.0.0.0"
+    );
+
+    private final Parser<Expression> parser = ExpressionParser.newInstance();
+
+    @Test
+    public void shouldFindHighestAndLowestSatisfyingVersion() {
+        Constraints constraints = constraints(">=1.0", "<=1.5", "!=1.5.0.0", "!(1.2.*)");
+        VersionSet set = VersionSet.of(VERSIONS);
+        assertTrue(constraints.isSatisfiable());
+        assertTrue(constraints.getConflict().isEmpty());
+        assertEquals(Version.valueOf("1.3.0.0"), constraints.highest(set));
+        assertEquals(Version.valueOf("1.3.0.0"), constraints.highest(VERSIONS));
+        assertEquals(Version.valueOf("1.0.0.0"), constraints.lowest(set));
+        assertEquals(Version.valueOf("1.0.0.0"), constraints.lowest(VERSIONS));
+    }
+
+    @Test
+    public void shouldAgreeWithInterpretingEveryExpression() {
+        Random random = new Random(19);
+        VersionSet set = VersionSet.of(VERSIONS);
+        for (int round = 0; round < 200; round++) {
+            List<Expression> expressions = new ArrayList<Expression>();
+            for (int i = random.nextInt(4); i >= 0; i--) {
+                String op = new String[] {">", ">=", "<", "<=", "!=", "~", "^"}[random.nextInt(7)];
+                expressions.add(parser.parse(op + random.nextInt(4) + "." + random.nextInt(6)));
+            }
+            if (random.nextBoolean()) {
+                expressions.add(new Expression() {
+                    @Override
+                    public boolean interpret(Version version) {
+                        return version.getPatchVersion() == 0;
+                    }
+                });
+            }
+            Constraints constraints = Constraints.of(expressions);
+            Version highest = null;
+            Version lowest = null;
+            for (Version version : VERSIONS) {
+                boolean satisfied = true;
+                for (Expression expression : expressions) {
+                    satisfied &= expression.interpret(version);
+                }
+                assertEquals(satisfied, constraints.interpret(version));
+                if (satisfied) {
+                    highest = version;
+                    lowest = (lowest == null) ? version : lowest;
+                }
+            }
+            assertEquals(highest, constraints.highest(set));
+            assertEquals(highest, constraints.highest(VERSIONS));
+            assertEquals(lowest, constraints.lowest(set));
+            assertEquals(lowest, constraints.lowest(VERSIONS));
+        }
+    }
+
+    @Test
+    public void shouldReportMinimalConflict() {
+        Constraints constraints = constraints(">=1.0", "<3.0", "~1.2", "!=1.2.5.0", ">=2.0", "<5.0");
+        assertFalse(constraints.isSatisfiable());
+        assertNull(constraints.highest(VersionSet.of(VERSIONS)));
+        assertNull(constraints.lowest(VERSIONS));
+        List<Expression> conflict = constraints.getConflict();
+        assertEquals(2, conflict.size());
+        assertSame(constraints.getExpressions().get(2), conflict.get(0));
+        assertSame(constraints.getExpressions().get(4), conflict.get(1));
+    }
+
+    @Test
+    public void shouldReportConflictWhoseProperSubsetsAreSatisfiable() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            List<Expression> expressions = new ArrayList<Expression>();
+            for (int i = random.nextInt(6) + 2; i >= 0; i--) {
+                String op = new String[] {">", ">=", "<", "<=", "!=", "="}[random.nextInt(6)];
+                expressions.add(parser.parse(op + random.nextInt(3) + "." + random.nextInt(3)));
+            }
+            Constraints constraints = Constraints.of(expressions);
+            List<Expression> conflict = constraints.getConflict();
+            if (constraints.isSatisfiable()) {
+                assertTrue(conflict.isEmpty());
+                continue;
+            }
+            assertFalse(Constraints.of(conflict).isSatisfiable());
+            for (int i = 0; i < conflict.size(); i++) {
+                List<Expression> subset = new ArrayList<Expression>(conflict);
+                subset.remove(i);
+                assertTrue(Constraints.of(subset).isSatisfiable());
+            }
+        }
+    }
+
+    @Test
+    public void shouldCompileOnlyWithoutUncompiledExpressions() {
+        Constraints constraints = constraints(">=1.0", "<2.0");
+        assertEquals(constraints.getIntersection(), IntervalSet.compile(constraints));
+        assertTrue(IntervalSet.compile(parser.parse(">=1.5")).intersect(constraints.compile()).interpret(
+            Version.valueOf("1.5.0.0")));
+        Expression any = new Expression() {
+            @Override
+            public boolean interpret(Version version) {
+                return true;
+            }
+        };
+        try {
+            Constraints.of(Arrays.asList(parser.parse(">=1.0"), any)).compile();
+            fail("Uncompiled expression should not be compiled");
+        } catch (IllegalArgumentException e) {
+            assertTrue(Constraints.of(Collections.singletonList(any)).isSatisfiable());
+        }
+    }
+
+    private Constraints constraints(String... inputs) {
+        List<Expression> expressions = new ArrayList<Expression>();
+        for (String input : inputs) {
+            expressions.add(parser.parse(input));
+        }
+        return Constraints.of(expressions);
+    }
+
+    private static List<Version> versions(String... inputs) {
+        List<Version> versions = new ArrayList<Version>();
+        for (String input : inputs) {
+            versions.add(Version.valueOf(input));
+        }
+        return versions;
+    }
+}
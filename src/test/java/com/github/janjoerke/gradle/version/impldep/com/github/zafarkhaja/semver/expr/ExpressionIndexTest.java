@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Parser;
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+import static org.junit.Assert.*;
+
+public class ExpressionIndexTest {
+
+    private static final String[] VERSIONS = {
+        "0.0.0.0", "0.9.0.0", "1.0.0.0-alpha", "1.0.0.0-rc.1", "1.0.0.0", "1.0.0.1",
+        "1.2.0.0", "1.2.5.0", "1.3.0.0-beta", "1.3.0.0", "1.5.0.0", "2.0.0.0-rc.1",
+        "2.0.0.0", "2.0.0.1", "2.5.0.0", "3.0.0.0", "4.0.0.0", "10.0.0.0",
+    };
+
+    private static final String[] EXPRESSIONS = {
+        "1.2",
+        "~1.2 | ^2.0",
+        "!(>=1.0 & <2.0)",
+        "!=1.0.0.0 & <1.3",
+        "(>1.0 & <1.5) | (>=1.2 & <=2.0) | =3.0",
+        "1.0 - 2.0 & !(1.2.*)",
+        "<1.0 | >=1.0",
+        ">2.0 & <1.0",
+        "*",
+        "=2.0",
+        "<=1.0.0.0",
+    };
+
+    private final Parser<Expression> parser = ExpressionParser.newInstance();
+
+    @Test
+    public void shouldFindSameExpressionsAsInterpreting() {
+        List<Expression> expressions = new ArrayList<Expression>();
+        for (String input : EXPRESSIONS) {
+            expressions.add(parser.parse(input));
+        }
+        assertMatchesInterpretation(ExpressionIndex.of(expressions), expressions, VERSIONS);
+    }
+
+    @Test
+    public void shouldFindSameExpressionsAsInterpretingRandomRanges() {
+        Random random = new Random(18);
+        List<Expression> expressions = new ArrayList<Expression>();
+        for (int i = 0; i < 500; i++) {
+            int major = random.nextInt(5);
+            int minor = random.nextInt(5);
+            String lower = (random.nextBoolean() ? ">=" : ">") + major + "." + minor;
+            String upper = (random.nextBoolean() ? "<=" : "<") + (major + random.nextInt(3)) + "." + random.nextInt(5);
+            String input = lower + " & " + upper;
+            if (random.nextInt(4) == 0) {
+                input = "!(" + input + ")";
+            } else if (random.nextInt(4) == 0) {
+                input += " | =" + random.nextInt(5) + "." + random.nextInt(5);
+            }
+            expressions.add(parser.parse(input));
+        }
+        List<String> versions = new ArrayList<String>();
+        for (int major = 0; major < 8; major++) {
+            for (int minor = 0; minor < 6; minor++) {
+                versions.add(major + "." + minor + ".0.0");
+                versions.add(major + "." + minor + ".0.0-rc.1");
+                versions.add(major + "." + minor + ".0.1");
+            }
+        }
+        assertMatchesInterpretation(ExpressionIndex.of(expressions), expressions,
+            versions.toArray(new String[versions.size()]));
+    }
+
+    @Test
+    public void shouldInterpretExpressionsWhichCannotBeCompiled() {
+        Expression odd = new Expression() {
+            @Override
+            public boolean interpret(Version version) {
+                return version.getMinorVersion() % 2 == 1;
+            }
+        };
+        List<Expression> expressions = Arrays.asList(parser.parse(">=1.0"), odd, parser.parse("<1.3"));
+        ExpressionIndex index = ExpressionIndex.of(expressions);
+        assertArrayEquals(new int[] {0, 1}, index.matching(Version.valueOf("1.3.0.0")));
+        assertArrayEquals(new int[] {0, 1, 2}, index.matching(Version.valueOf("1.1.0.0")));
+        assertEquals(Arrays.asList(expressions.get(0), expressions.get(2)),
+            index.matchingExpressions(Version.valueOf("1.2.0.0")));
+    }
+
+    @Test
+    public void shouldMatchNothingWhenEmpty() {
+        ExpressionIndex index = ExpressionIndex.of(Collections.<Expression>emptyList());
+        assertEquals(0, index.size());
+        assertEquals(0, index.matching(Version.valueOf("1.0.0.0")).length);
+    }
+
+    private static void assertMatchesInterpretation(ExpressionIndex index, List<Expression> expressions,
+            String[] versions) {
+        assertEquals(expressions.size(), index.size());
+        for (String version : versions) {
+            Version v = Version.valueOf(version);
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < expressions.size(); i++) {
+                if (expressions.get(i).interpret(v)) {
+                    expected.add(i);
+                }
+            }
+            int[] actual = index.matching(v);
+            assertEquals(version, expected.size(), actual.length);
+            for (int i = 0; i < actual.length; i++) {
+                assertEquals(version, expected.get(i).intValue(), actual[i]);
+            }
+        }
+    }
+}
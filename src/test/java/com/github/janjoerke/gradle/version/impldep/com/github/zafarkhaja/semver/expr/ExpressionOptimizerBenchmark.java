@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+/**
+ * Measures the interpretation of realistic constraints before and after
+ * the optimization. It is not a test, run it with the test runtime
+ * classpath:
+ *
+ * <pre>
+ * java com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr.ExpressionOptimizerBenchmark [versions]
+ * </pre>
+ *
+ * The versions, 100000 by default, are random four part versions with a
+ * major version below 4 and minor and build versions below 10. Each
+ * constraint is interpreted version by version and against a prepared
+ * batch, the building of the batch is not measured. The median of the
+ * measured rounds is reported in nanoseconds per version.
+ */
+public class ExpressionOptimizerBenchmark {
+
+    private static final String[] CONSTRAINTS = {
+        "~1.2 & >=1.2.3 & <1.5",
+        "^2.0 & !=2.3.1 & !=2.4.0 & <2.9",
+        "(>=1.0 & <2.0) | (>=1.5 & <3.0) | ~2.8",
+        "1.2.* & !(1.2.5) & >1.2.1",
+        ">=1.0 & >=1.1 & >=1.2 & <4.0 & <3.0 & <2.5 & !(>=2.2 & <2.3)",
+    };
+
+    private static final int WARM_UP_ROUNDS = 20;
+
+    private static final int ROUNDS = 31;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        Random random = new Random(1);
+        Version[] versions = new Version[count];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = Version.forIntegers(random.nextInt(4), random.nextInt(10), random.nextInt(10));
+        }
+        VersionBatch batch = new VersionBatch(versions);
+        for (String constraint : CONSTRAINTS) {
+            Expression original = ExpressionParser.newInstance().parse(constraint);
+            Expression optimized = ExpressionOptimizer.optimize(original);
+            if (!batch.interpret(original).equals(batch.interpret(optimized))) {
+                throw new IllegalStateException("The optimized expression differs for " + constraint);
+            }
+            long[][] times = new long[4][ROUNDS];
+            for (int round = -WARM_UP_ROUNDS; round < ROUNDS; round++) {
+                long[] time = {
+                    interpret(original, versions),
+                    interpret(optimized, versions),
+                    interpret(original, batch),
+                    interpret(optimized, batch),
+                };
+                if (round >= 0) {
+                    for (int k = 0; k < time.length; k++) {
+                        times[k][round] = time[k];
+                    }
+                }
+            }
+            System.out.printf("%-62s interpret %5.1f -> %5.1f, batch %5.1f -> %5.1f ns/version%n", constraint,
+                median(times[0], count), median(times[1], count), median(times[2], count), median(times[3], count));
+        }
+    }
+
+    private static long interpret(Expression expr, Version[] versions) {
+        long start = System.nanoTime();
+        int satisfied = 0;
+        for (Version version : versions) {
+            if (expr.interpret(version)) {
+                satisfied++;
+            }
+        }
+        return consume(System.nanoTime() - start, satisfied);
+    }
+
+    private static long interpret(Expression expr, VersionBatch batch) {
+        long start = System.nanoTime();
+        int satisfied = batch.interpret(expr).cardinality();
+        return consume(System.nanoTime() - start, satisfied);
+    }
+
+    private static long consume(long time, int satisfied) {
+        return satisfied < 0 ? -time : time;
+    }
+
+    private static double median(long[] times, int count) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return (double) sorted[sorted.length / 2] / count;
+    }
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Parser;
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+import static org.junit.Assert.*;
+
+public class ExpressionOptimizerTest {
+
+    private static final Expression EVEN_PATCH = new Expression() {
+        @Override
+        public boolean interpret(Version version) {
+            return version.getPatchVersion() % 2 == 0;
+        }
+    };
+
+    private static final String[] OPERANDS = {
+        "1.2", "~1.2", "^2.0", ">=1.2.3", "<1.5", "!=1.3.0.0", "1.0 - 2.0", "1.2.*",
+        ">3.0", "<=0.9", "=2.0.0.0", "*", "!(1.4.*)",
+    };
+
+    private final Parser<Expression> parser = ExpressionParser.newInstance();
+
+    @Test
+    public void shouldBeSatisfiedBySameVersions() {
+        Random random = new Random(20);
+        List<Version> versions = new ArrayList<Version>();
+        for (int major = 0; major < 5; major++) {
+            for (int minor = 0; minor < 7; minor++) {
+                versions.add(Version.valueOf(major + "." + minor + ".0.0"));
+                versions.add(Version.valueOf(major + "." + minor + ".3.0"));
+                versions.add(Version.valueOf(major + "." + minor + ".0.0-rc.1"));
+            }
+        }
+        for (int round = 0; round < 300; round++) {
+            Expression expr = randomExpression(random, 3);
+            Expression optimized = ExpressionOptimizer.optimize(expr);
+            for (Version version : versions) {
+                assertEquals(version.toString(), expr.interpret(version), optimized.interpret(version));
+            }
+            Version[] array = versions.toArray(new Version[versions.size()]);
+            assertEquals(new VersionBatch(array).interpret(expr), new VersionBatch(array).interpret(optimized));
+        }
+    }
+
+    @Test
+    public void shouldDropSubsumedBounds() {
+        Expression optimized = ExpressionOptimizer.optimize(parser.parse("~1.2 & >=1.2.3 & <1.5"));
+        And and = (And) optimized;
+        assertEquals(new GreaterOrEqual(Version.valueOf("1.2.3.0")).compile(), IntervalSet.compile(and.getLeft()));
+        assertEquals(new Less(Version.valueOf("1.3.0.0")).compile(), IntervalSet.compile(and.getRight()));
+    }
+
+    @Test
+    public void shouldFoldNotOverComparisons() {
+        assertTrue(ExpressionOptimizer.optimize(parser.parse("!(<1.0)")) instanceof GreaterOrEqual);
+        assertTrue(ExpressionOptimizer.optimize(parser.parse("!(!(=1.0))")) instanceof Equal);
+        assertTrue(ExpressionOptimizer.optimize(parser.parse("<1.0 | >1.0")) instanceof NotEqual);
+    }
+
+    @Test
+    public void shouldFlattenAndOrderByCost() {
+        Expression expr = new And(new And(EVEN_PATCH, parser.parse(">=1.0")), new Not(new Or(parser.parse(">=2.0"), EVEN_PATCH)));
+        And optimized = (And) ExpressionOptimizer.optimize(expr);
+        assertTrue(optimized.getRight() instanceof Not);
+        And first = (And) optimized.getLeft();
+        assertSame(EVEN_PATCH, first.getRight());
+        IntervalSet expected = IntervalSet.interval(Version.valueOf("1.0.0.0"), true, Version.valueOf("2.0.0.0"), false);
+        assertEquals(expected, IntervalSet.compile(first.getLeft()));
+    }
+
+    @Test
+    public void shouldReduceContradictionsAndTautologies() {
+        assertTrue(((IntervalSet) ExpressionOptimizer.optimize(new And(EVEN_PATCH, parser.parse(">2.0 & <1.0")))).isEmpty());
+        assertTrue(((IntervalSet) ExpressionOptimizer.optimize(new Or(parser.parse("<1.0 | >=1.0"), EVEN_PATCH))).isAll());
+        assertSame(EVEN_PATCH, ExpressionOptimizer.optimize(new And(parser.parse("<1.0 | >=1.0"), EVEN_PATCH)));
+    }
+
+    @Test
+    public void shouldKeepConstraintsWhichCannotBeCompiled() {
+        Constraints constraints = Constraints.of(Arrays.asList(EVEN_PATCH, parser.parse(">=1.0.0.0")));
+        CompilableExpression failing = new CompilableExpression() {
+            @Override
+            public boolean interpret(Version version) {
+                return version.getMinorVersion() != 1;
+            }
+
+            @Override
+            public IntervalSet compile() {
+                throw new IllegalArgumentException("Cannot compile");
+            }
+        };
+        Expression[] exprs = {
+            constraints,
+            new And(constraints, parser.parse("<2.0")),
+            new Or(parser.parse("<0.5"), constraints),
+            new Not(constraints),
+            failing,
+            new Not(new And(failing, parser.parse("<2.0"))),
+        };
+        for (Expression expr : exprs) {
+            Expression optimized = ExpressionOptimizer.optimize(expr);
+            for (int minor = 0; minor < 4; minor++) {
+                for (int patch = 0; patch < 3; patch++) {
+                    Version version = Version.forIntegers(minor, minor, patch);
+                    assertEquals(version.toString(), expr.interpret(version), optimized.interpret(version));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldKeepSetsOfManyIntervals() {
+        Expression optimized = ExpressionOptimizer.optimize(parser.parse("1.1 | 1.3 | 1.5 | 1.7"));
+        assertTrue(optimized instanceof IntervalSet);
+        assertEquals(4, ((IntervalSet) optimized).size());
+    }
+
+    private Expression randomExpression(Random random, int depth) {
+        int choice = random.nextInt(depth > 0 ? 7 : 2);
+        switch (choice) {
+            case 0:
+                return parser.parse(OPERANDS[random.nextInt(OPERANDS.length)]);
+            case 1:
+                return random.nextInt(4) == 0 ? EVEN_PATCH : parser.parse(OPERANDS[random.nextInt(OPERANDS.length)]);
+            case 2:
+            case 3:
+                return new And(randomExpression(random, depth - 1), randomExpression(random, depth - 1));
+            case 4:
+                return new Or(randomExpression(random, depth - 1), randomExpression(random, depth - 1));
+            case 5:
+                return Constraints.of(Arrays.asList(
+                    randomExpression(random, depth - 1), randomExpression(random, depth - 1)
+                ));
+            default:
+                return new Not(randomExpression(random, depth - 1));
+        }
+    }
+}
@@ -26,6 +26,7 @@ package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.junit.Test;
 
@@ -211,4 +212,57 @@ public class ExpressionParserTest {
         assertTrue(expr.interpret(Version.valueOf("1.5.0.0")));
         assertFalse(expr.interpret(Version.valueOf("2.5.0.0")));
     }
+
+    @Test
+    public void shouldGroupMixedOperatorsToTheRight() {
+        ExpressionParser parser = new ExpressionParser(new Lexer());
+        Expression expr1 = parser.parse("<1.0 & >2.0 | =3.0");
+        assertFalse(expr1.interpret(Version.valueOf("3.0.0.0")));
+        Expression expr2 = parser.parse("=3.0 | <1.0 & >2.0");
+        assertTrue(expr2.interpret(Version.valueOf("3.0.0.0")));
+        Expression expr3 = parser.parse("<1.0 | >2.0 & <3.0 & !=2.5 | =4.0");
+        assertTrue(expr3.interpret(Version.valueOf("0.5.0.0")));
+        assertTrue(expr3.interpret(Version.valueOf("2.2.0.0")));
+        assertFalse(expr3.interpret(Version.valueOf("2.5.0.0")));
+        assertFalse(expr3.interpret(Version.valueOf("4.0.0.0")));
+    }
+
+    @Test
+    public void shouldBuildTreesOfLogarithmicDepthForLongExpressions() {
+        ExpressionParser parser = new ExpressionParser(new Lexer());
+        for (int clauses = 10; clauses <= 100000; clauses *= 10) {
+            Expression expr = parser.parse(orChain(clauses));
+            int maxDepth = 2 * (32 - Integer.numberOfLeadingZeros(clauses - 1)) + 2;
+            int depth = depthOf(expr);
+            if (depth > maxDepth) {
+                fail("The tree of " + clauses + " clauses is " + depth + " levels deep, expected at most " + maxDepth);
+            }
+            assertTrue(expr.interpret(Version.valueOf((clauses - 1) + ".0.0.0")));
+            assertFalse(expr.interpret(Version.valueOf(clauses + ".0.0.0")));
+        }
+    }
+
+    private static String orChain(int clauses) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < clauses; i++) {
+            if (i > 0) {
+                sb.append(" | ");
+            }
+            sb.append("=").append(i).append(".0");
+        }
+        return sb.toString();
+    }
+
+    private static int depthOf(Expression expr) {
+        if (expr instanceof CompositeExpression) {
+            return 1 + depthOf(((CompositeExpression) expr).getTree());
+        } else if (expr instanceof Or) {
+            return 1 + Math.max(depthOf(((Or) expr).getLeft()), depthOf(((Or) expr).getRight()));
+        } else if (expr instanceof And) {
+            return 1 + Math.max(depthOf(((And) expr).getLeft()), depthOf(((And) expr).getRight()));
+        } else if (expr instanceof Not) {
+            return 1 + depthOf(((Not) expr).getOperand());
+        }
+        return 1;
+    }
 }
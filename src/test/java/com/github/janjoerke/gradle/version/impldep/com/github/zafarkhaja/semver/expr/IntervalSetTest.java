@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * The MIT License
+ *
+ * Copyright 2019 Jan Jörke <janjoerke@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *******************************************************************************/
+package com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.expr;
+
+import org.junit.Test;
+
+import com.github.janjoerke.gradle.version.impldep.com.github.zafarkhaja.semver.Version;
+
+import static org.junit.Assert.*;
+
+public class IntervalSetTest {
+
+    private static final String[] VERSIONS = {
+        "0.0.0.0", "0.9.0.0", "1.0.0.0-alpha", "1.0.0.0-rc.1", "1.0.0.0", "1.0.0.1",
+        "1.2.0.0", "1.2.5.0", "1.3.0.0-beta", "1.3.0.0", "1.5.0.0", "2.0.0.0-rc.1",
+        "2.0.0.0", "2.0.0.1", "2.5.0.0", "3.0.0.0", "4.0.0.0", "10.0.0.0",
+    };
+
+    private static final String[] EXPRESSIONS = {
+        "1.2",
+        "~1.2 | ^2.0",
+        "!(>=1.0 & <2.0)",
+        "!=1.0.0.0 & <1.3",
+        "(>1.0 & <1.5) | (>=1.2 & <=2.0) | =3.0",
+        "1.0 - 2.0 & !(1.2.*)",
+        "<1.0 | >=1.0",
+        ">2.0 & <1.0",
+        "*",
+    };
+
+    private final ExpressionParser parser = new ExpressionParser(new Lexer());
+
+    @Test
+    public void shouldBeSatisfiedBySameVersionsAsExpression() {
+        for (String input : EXPRESSIONS) {
+            CompositeExpression expr = (CompositeExpression) parser.parse(input);
+            IntervalSet set = expr.compile();
+            for (String version : VERSIONS) {
+                Version v = Version.valueOf(version);
+                assertEquals(input + " with " + version, expr.interpret(v), set.interpret(v));
+            }
+        }
+    }
+
+    @Test
+    public void shouldMergeOverlappingAndTouchingIntervals() {
+        IntervalSet set = compile("(>=1.0 & <2.0) | (>=2.0 & <3.0) | (>2.5 & <4.0)");
+        assertEquals(1, set.size());
+        assertEquals(Version.valueOf("1.0.0.0"), set.getLower(0));
+        assertTrue(set.isLowerInclusive(0));
+        assertEquals(Version.valueOf("4.0.0.0"), set.getUpper(0));
+        assertFalse(set.isUpperInclusive(0));
+    }
+
+    @Test
+    public void shouldNotMergeIntervalsSeparatedByExcludedVersion() {
+        IntervalSet set = compile("!=2.0");
+        assertEquals(2, set.size());
+        assertNull(set.getLower(0));
+        assertNull(set.getUpper(1));
+        assertFalse(set.interpret(Version.valueOf("2.0.0.0")));
+    }
+
+    @Test
+    public void shouldDetectEmptyConstraints() {
+        assertTrue(compile(">2.0 & <1.0").isEmpty());
+        assertTrue(compile(">=1.0 & <1.0").isEmpty());
+        assertTrue(compile("!(*) & >=1.0").isEmpty());
+        assertFalse(compile(">=1.0 & <=1.0").isEmpty());
+    }
+
+    @Test
+    public void shouldCoverAllVersionsWithComplementaryConstraints() {
+        assertTrue(compile("<1.0 | >=1.0").isAll());
+        assertTrue(compile("!=1.0 | =1.0").isAll());
+        assertFalse(compile("<1.0 | >1.0").isAll());
+    }
+
+    @Test
+    public void shouldBeEqualForEquivalentConstraints() {
+        assertEquals(compile("~1.2"), compile(">=1.2 & <1.3"));
+        assertEquals(compile("!(<1.0)"), compile(">=1.0"));
+        assertEquals(compile("1.0 - 2.0"), compile("<=2.0 & >=1.0"));
+        assertEquals(compile("~1.2").hashCode(), compile(">=1.2 & <1.3").hashCode());
+        assertNotEquals(compile(">=1.0"), compile(">1.0"));
+    }
+
+    @Test
+    public void shouldReturnComplementOfComplement() {
+        IntervalSet set = compile("(>1.0 & <1.5) | =2.0 | >=3.0");
+        assertEquals(set, set.complement().complement());
+        assertEquals(IntervalSet.all(), set.union(set.complement()));
+        assertEquals(IntervalSet.empty(), set.intersect(set.complement()));
+    }
+
+    @Test
+    public void shouldPrintIntervals() {
+        assertEquals("{[1.0.0.0, 2.0.0.0), (3.0.0.0, +inf)}", compile("(>=1.0 & <2.0) | >3.0").toString());
+        assertEquals("{(-inf, +inf)}", IntervalSet.all().toString());
+        assertEquals("{}", IntervalSet.empty().toString());
+    }
+
+    @Test
+    public void shouldRaiseErrorOnUnknownExpression() {
+        Expression custom = new Expression() {
+            @Override
+            public boolean interpret(Version version) {
+                return true;
+            }
+        };
+        try {
+            new CompositeExpression(custom).and(CompositeExpression.Helper.gt("1.0.0.0")).compile();
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        fail("Should raise error on expression which cannot be compiled");
+    }
+
+    private IntervalSet compile(String input) {
+        return IntervalSet.compile(parser.parse(input));
+    }
+}
@@ -93,4 +93,59 @@ public class LexerTest {
         }
         fail("Should raise error on illegal character");
     }
+
+    @Test
+    public void shouldPreferTwoCharacterOperators() {
+        Token[] expected = {
+            new Token(NOT_EQUAL,     "!=", 0),
+            new Token(GREATER_EQUAL, ">=", 2),
+            new Token(LESS_EQUAL,    "<=", 4),
+            new Token(NOT,           "!",  6),
+            new Token(GREATER,       ">",  7),
+            new Token(LESS,          "<",  8),
+            new Token(EOI,           null, 9),
+        };
+        Lexer lexer = new Lexer();
+        Stream<Token> stream = lexer.tokenize("!=>=<=!><");
+        assertArrayEquals(expected, stream.toArray());
+    }
+
+    @Test
+    public void shouldSplitNumbersWithLeadingZeroes() {
+        Token[] expected = {
+            new Token(NUMERIC, "0",  0),
+            new Token(NUMERIC, "12", 1),
+            new Token(EOI,     null, 3),
+        };
+        Lexer lexer = new Lexer();
+        Stream<Token> stream = lexer.tokenize("012");
+        assertArrayEquals(expected, stream.toArray());
+    }
+
+    @Test
+    public void shouldReportRemainingInputOnIllegalCharacter() {
+        Lexer lexer = new Lexer();
+        try {
+            lexer.tokenize(">1.0 @1.0.0");
+        } catch (LexerException e) {
+            assertEquals("Illegal character near '@1.0.0'", e.toString());
+            return;
+        }
+        fail("Should raise error on illegal character");
+    }
+
+    @Test
+    public void shouldScanLongInputIntoBuffer() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append(i == 0 ? "" : " | ").append("1.").append(i).append(".0");
+        }
+        Lexer lexer = new Lexer();
+        TokenBuffer tokens = lexer.scan(sb.toString());
+        assertEquals(10000 * 5 + 9999 + 1, tokens.size());
+        assertEquals(NUMERIC, tokens.type(2));
+        assertEquals(9999, tokens.intValue(tokens.size() - 4));
+        assertEquals(EOI, tokens.type(tokens.size() - 1));
+        assertEquals(sb.length(), tokens.position(tokens.size() - 1));
+    }
 }